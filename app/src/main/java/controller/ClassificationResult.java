@@ -0,0 +1,153 @@
+package controller;
+
+import java.util.Arrays;
+
+/**
+ * Immutable outcome of one classification pass: raw and display-adjusted
+ * probabilities for every category, the best category, a ranking and the
+ * time spent in each stage. Returned by {@link GameController#classify}.
+ */
+public final class ClassificationResult {
+
+    private final String[] categories;
+    private final double[] rawProbabilities;
+    private final double[] adjustedProbabilities;
+    private final int[] ranking;
+    private final long preprocessingNanos;
+    private final long inferenceNanos;
+    private final long postprocessingNanos;
+
+    /**
+     * Creates a result. The arrays are copied.
+     *
+     * @param categories            category names, in model order
+     * @param rawProbabilities      positive probability of every category as returned by the models
+     * @param adjustedProbabilities probabilities prepared for display
+     * @param preprocessingNanos    time spent turning the drawing into model input
+     * @param inferenceNanos        time spent in the models (or the cache)
+     * @param postprocessingNanos   time spent adjusting the probabilities for display
+     */
+    public ClassificationResult(String[] categories, double[] rawProbabilities, double[] adjustedProbabilities,
+                                long preprocessingNanos, long inferenceNanos, long postprocessingNanos) {
+        if (categories.length != rawProbabilities.length || categories.length != adjustedProbabilities.length) {
+            throw new IllegalArgumentException("Every category needs one raw and one adjusted probability.");
+        }
+        this.categories = categories.clone();
+        this.rawProbabilities = rawProbabilities.clone();
+        this.adjustedProbabilities = adjustedProbabilities.clone();
+        this.preprocessingNanos = preprocessingNanos;
+        this.inferenceNanos = inferenceNanos;
+        this.postprocessingNanos = postprocessingNanos;
+        this.ranking = rank(this.rawProbabilities);
+    }
+
+    /**
+     * Returns the category names, in the order of the probability arrays.
+     */
+    public String[] getCategories() {
+        return categories.clone();
+    }
+
+    /**
+     * Returns the positive probability of every category as computed by the models.
+     */
+    public double[] getRawProbabilities() {
+        return rawProbabilities.clone();
+    }
+
+    /**
+     * Returns the probabilities adjusted and rounded for display.
+     */
+    public double[] getAdjustedProbabilities() {
+        return adjustedProbabilities.clone();
+    }
+
+    /**
+     * Returns the index of the most likely category.
+     */
+    public int getBestIndex() {
+        return ranking[0];
+    }
+
+    /**
+     * Returns the name of the most likely category.
+     */
+    public String getBestCategory() {
+        return categories[ranking[0]];
+    }
+
+    /**
+     * Returns the indices of the k most likely categories, best first.
+     *
+     * @param k number of categories (clamped to the number of categories)
+     */
+    public int[] getTopIndices(int k) {
+        return Arrays.copyOf(ranking, Math.max(0, Math.min(k, ranking.length)));
+    }
+
+    /**
+     * Returns the names of the k most likely categories, best first.
+     *
+     * @param k number of categories (clamped to the number of categories)
+     */
+    public String[] getTopCategories(int k) {
+        int[] top = getTopIndices(k);
+        String[] names = new String[top.length];
+        for (int i = 0; i < top.length; i++) {
+            names[i] = categories[top[i]];
+        }
+        return names;
+    }
+
+    /**
+     * Returns the time spent turning the drawing into model input, in nanoseconds.
+     */
+    public long getPreprocessingNanos() {
+        return preprocessingNanos;
+    }
+
+    /**
+     * Returns the time spent computing the raw probabilities, in nanoseconds.
+     */
+    public long getInferenceNanos() {
+        return inferenceNanos;
+    }
+
+    /**
+     * Returns the time spent adjusting the probabilities for display, in nanoseconds.
+     */
+    public long getPostprocessingNanos() {
+        return postprocessingNanos;
+    }
+
+    /**
+     * Returns the total time of all stages, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return preprocessingNanos + inferenceNanos + postprocessingNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ClassificationResult[best=%s, adjusted=%s, total=%.3f ms]",
+                getBestCategory(), Arrays.toString(adjustedProbabilities), getTotalNanos() / 1e6);
+    }
+
+    /**
+     * Sorts the category indices by descending probability (insertion sort, the list is tiny).
+     * Ties keep the lower index first.
+     */
+    private static int[] rank(double[] probabilities) {
+        int[] order = new int[probabilities.length];
+        for (int i = 0; i < order.length; i++) {
+            int index = i;
+            int j = i - 1;
+            while (j >= 0 && probabilities[order[j]] < probabilities[index]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,101 @@
+package controller;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs classifications on a background thread and hands the results back to the
+ * Swing event dispatch thread. Only the newest request matters: submitting a request
+ * cancels the previous one, and results of superseded requests are dropped.
+ */
+public class ClassificationService {
+
+    private final ExecutorService executor;
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> current;
+
+    /**
+     * Creates a service with its own daemon worker thread.
+     */
+    public ClassificationService() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "classification");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Classifies a pooled model input in the background.
+     * The input is copied, so the caller may keep drawing into its buffer.
+     *
+     * @param input              196-element (14x14) model input
+     * @param preprocessingNanos time the caller spent producing the input
+     * @param onResult           called on the event dispatch thread with the result,
+     *                           unless a newer request was submitted in the meantime
+     * @param onError            called on the event dispatch thread instead of {@code onResult}
+     *                           if the classification failed, e.g. because the models could not be loaded
+     */
+    public void classify(double[] input, long preprocessingNanos, Consumer<ClassificationResult> onResult,
+                         Consumer<Exception> onError) {
+        double[] snapshot = input.clone();
+        submit(() -> GameController.classify(snapshot, preprocessingNanos), onResult, onError);
+    }
+
+    /**
+     * Runs any classification task in the background, superseding the previous request.
+     *
+     * @param task     work to run off the event dispatch thread
+     * @param onResult called on the event dispatch thread with the result,
+     *                 unless a newer request was submitted in the meantime
+     * @param onError  called on the event dispatch thread instead of {@code onResult} if the task failed
+     */
+    public synchronized void submit(Callable<ClassificationResult> task, Consumer<ClassificationResult> onResult,
+                                    Consumer<Exception> onError) {
+        long id = generation.incrementAndGet();
+        if (current != null) {
+            current.cancel(true);
+        }
+        current = executor.submit(() -> {
+            if (generation.get() != id) return;
+            try {
+                ClassificationResult result = task.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (generation.get() == id) {
+                        onResult.accept(result);
+                    }
+                });
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (generation.get() == id) {
+                        onError.accept(e);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Cancels the pending request so its result is never delivered, e.g. when the canvas is cleared.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    /**
+     * Stops the worker thread; later requests are rejected.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -1,11 +1,50 @@
 package controller;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
 import model.MultiModelClassifier;
+import model.Precision;
 
 public class GameController {
 
-    static MultiModelClassifier classifier = new MultiModelClassifier();
+    // Loads in the background so the first window appears without waiting for the models
+    static MultiModelClassifier classifier = MultiModelClassifier.loadInBackground(Precision.DOUBLE, ForkJoinPool.commonPool());
     static String[] categoryLabels = {"apple", "candle", "eyeglasses", "fork", "star"};
+    static volatile ResultCache cache;
+
+    /**
+     * Returns a future that completes once all models are loaded.
+     * Classification calls made earlier wait for the models, so the GUI should
+     * only enable recognition after this future completed.
+     */
+    public static CompletableFuture<Void> whenReady() {
+        return classifier.getReadyFuture().thenRun(() -> { });
+    }
+
+    /**
+     * Puts a bounded LRU cache in front of the models, replacing any previous one.
+     * Identical pooled inputs are then answered without running the models.
+     *
+     * @param capacity maximum number of cached inputs
+     */
+    public static void enableCache(int capacity) {
+        cache = new ResultCache(capacity);
+    }
+
+    /**
+     * Removes the result cache; every request runs the models again.
+     */
+    public static void disableCache() {
+        cache = null;
+    }
+
+    /**
+     * Returns the active result cache (for hit/miss statistics), or null if caching is off.
+     */
+    public static ResultCache getCache() {
+        return cache;
+    }
 
     /**
      * Converts a 28x28 int matrix (0/1 pixels) into a double[] input for the model,
@@ -14,13 +53,88 @@ public class GameController {
      * @param pixelMatrix 28x28 int matrix with pixel data (0 or 1)
      */
     public static double[] classifyFromPixelMatrix(double[][] pixelMatrix) {
+        return classify(pixelMatrix).getAdjustedProbabilities();
+    }
+
+    /**
+     * Classifies a drawing in a single pass: preprocessing, one run of all models
+     * and the display adjustment. Use the returned result for both the chart and the label
+     * instead of calling {@link #classifyFromPixelMatrix} and {@link #getBestCategory} separately.
+     *
+     * @param pixelMatrix 28x28 matrix with grayscale pixel data (0 to 1)
+     * @return probabilities, best category, ranking and stage timings
+     */
+    public static ClassificationResult classify(double[][] pixelMatrix) {
         if (pixelMatrix == null || pixelMatrix.length != 28 || pixelMatrix[0].length != 28) {
             throw new IllegalArgumentException("Input must be a 28x28 int matrix.");
         }
 
+        long start = System.nanoTime();
         double[] input = downscale28to14(flatten(pixelMatrix));
-        double[] allProbabilities = classifier.getAllCategoryProbabilities(input);
-        
+        long preprocessed = System.nanoTime();
+        double[] allProbabilities = rawProbabilities(input);
+        long inferred = System.nanoTime();
+        return buildResult(allProbabilities, preprocessed - start, inferred - preprocessed, inferred);
+    }
+
+    /**
+     * Classifies an already pooled model input, e.g. from {@link IntegralImageSampler}.
+     * The input is only read, so the caller may reuse the array afterwards.
+     *
+     * @param input              196-element (14x14) model input
+     * @param preprocessingNanos time the caller spent producing the input
+     * @return probabilities, best category, ranking and stage timings
+     */
+    public static ClassificationResult classify(double[] input, long preprocessingNanos) {
+        if (input == null || input.length != 196) {
+            throw new IllegalArgumentException("Input must contain 196 (14x14) elements.");
+        }
+
+        long start = System.nanoTime();
+        double[] allProbabilities = rawProbabilities(input);
+        long inferred = System.nanoTime();
+        return buildResult(allProbabilities, preprocessingNanos, inferred - start, inferred);
+    }
+
+    /**
+     * Adjusts the raw probabilities and wraps everything into a result.
+     */
+    private static ClassificationResult buildResult(double[] allProbabilities, long preprocessingNanos,
+                                                    long inferenceNanos, long postprocessingStart) {
+        double[] adjusted = adjustProbabilities(allProbabilities);
+        long postprocessingNanos = System.nanoTime() - postprocessingStart;
+        return new ClassificationResult(categoryLabels, allProbabilities, adjusted,
+                preprocessingNanos, inferenceNanos, postprocessingNanos);
+    }
+
+    /**
+     * Returns the raw positive probability of every category,
+     * answered from the result cache when it is enabled.
+     *
+     * @param input pooled 196-element model input
+     * @return raw probabilities for all categories
+     */
+    private static double[] rawProbabilities(double[] input) {
+        ResultCache activeCache = cache;
+        if (activeCache == null) {
+            return classifier.getAllCategoryProbabilities(input);
+        }
+        double[] probabilities = activeCache.get(input);
+        if (probabilities == null) {
+            probabilities = classifier.getAllCategoryProbabilities(input);
+            activeCache.put(input, probabilities);
+        }
+        return probabilities;
+    }
+
+    /**
+     * Spreads the raw model probabilities for display: the best category gets
+     * between 60% and 85%, the rest is shared in proportion to the other models.
+     *
+     * @param allProbabilities raw positive probability of every category
+     * @return adjusted probabilities rounded to two decimals
+     */
+    private static double[] adjustProbabilities(double[] allProbabilities) {
         int bestIndex = 0;
         double bestValue = allProbabilities[0];
         for (int i = 1; i < allProbabilities.length; i++) {
@@ -103,8 +217,7 @@ public class GameController {
      * @return Name of the recognized category
      */
     public static String getBestCategory(double[][] pixelMatrix) {
-        double[] input = downscale28to14(flatten(pixelMatrix));
-        return classifier.getBestMatch(input);
+        return classify(pixelMatrix).getBestCategory();
     }
 
     /**
@@ -0,0 +1,178 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Downsamples a canvas to any model input resolution using a summed-area table of its ink.
+ * The table is built once per canvas update in a single pass. Afterwards every output
+ * pixel is the exact area average of the region it covers, including partially covered
+ * canvas pixels, computed from a few table lookups. Producing 14x14, 28x28 or 64x64 input
+ * therefore costs O(output pixels), independent of the canvas size.
+ * The table is built straight from the pixel array behind the canvas, without copying the image.
+ * An instance keeps its table between calls and must not be shared between threads.
+ */
+public class IntegralImageSampler {
+
+    /** Ink of a fully black pixel: the summed RGB channels of white. */
+    private static final int FULL_INK = 3 * 255;
+
+    private long[] table = new long[0];
+    private int[] fallbackPixels = new int[0];
+    private double[] pooled = new double[0];
+    private int width;
+    private int height;
+
+    /**
+     * Builds the table for a canvas image.
+     *
+     * @param canvas RGB canvas image
+     */
+    public void build(BufferedImage canvas) {
+        build(pixelsOf(canvas), canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Returns the packed RGB pixels of an image. For the usual integer RGB canvas this is
+     * the backing array itself; other layouts are copied into a reused buffer.
+     */
+    private int[] pixelsOf(BufferedImage canvas) {
+        if (canvas.getRaster().getDataBuffer() instanceof DataBufferInt
+                && canvas.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && ((SinglePixelPackedSampleModel) canvas.getSampleModel()).getScanlineStride() == canvas.getWidth()
+                && canvas.getRaster().getSampleModelTranslateX() == 0
+                && canvas.getRaster().getSampleModelTranslateY() == 0) {
+            return ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+        }
+        int size = canvas.getWidth() * canvas.getHeight();
+        if (fallbackPixels.length != size) {
+            fallbackPixels = new int[size];
+        }
+        return canvas.getRGB(0, 0, canvas.getWidth(), canvas.getHeight(), fallbackPixels, 0, canvas.getWidth());
+    }
+
+    /**
+     * Builds the table for packed RGB pixels.
+     *
+     * @param pixels row-major RGB pixels, {@code width * height} entries
+     * @param width  canvas width
+     * @param height canvas height
+     */
+    public void build(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Pixel array does not match the canvas size.");
+        }
+        this.width = width;
+        this.height = height;
+        int stride = width + 1;
+        if (table.length < stride * (height + 1)) {
+            table = new long[stride * (height + 1)];
+        }
+
+        // Row 0 and column 0 stay zero, so lookups need no bounds checks
+        for (int x = 0; x <= width; x++) {
+            table[x] = 0;
+        }
+        for (int y = 0; y < height; y++) {
+            long rowSum = 0;
+            int source = y * width;
+            int above = y * stride;
+            int current = above + stride;
+            table[current] = 0;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[source + x];
+                rowSum += FULL_INK - (((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF));
+                table[current + x + 1] = table[above + x + 1] + rowSum;
+            }
+        }
+    }
+
+    /**
+     * Writes the area-averaged inverted grayscale image at the given resolution into {@code target}.
+     *
+     * @param outputWidth  columns of the output
+     * @param outputHeight rows of the output
+     * @param target       array of at least {@code outputWidth * outputHeight} elements, row-major
+     */
+    public void sample(int outputWidth, int outputHeight, double[] target) {
+        if (width == 0) {
+            throw new IllegalStateException("build must be called before sampling.");
+        }
+        if (outputWidth <= 0 || outputHeight <= 0 || target.length < outputWidth * outputHeight) {
+            throw new IllegalArgumentException("Target must hold " + outputWidth + "x" + outputHeight + " elements.");
+        }
+        double cellWidth = (double) width / outputWidth;
+        double cellHeight = (double) height / outputHeight;
+        double norm = FULL_INK * cellWidth * cellHeight;
+
+        for (int oy = 0; oy < outputHeight; oy++) {
+            double y0 = oy * cellHeight;
+            double y1 = oy == outputHeight - 1 ? height : (oy + 1) * cellHeight;
+            for (int ox = 0; ox < outputWidth; ox++) {
+                double x0 = ox * cellWidth;
+                double x1 = ox == outputWidth - 1 ? width : (ox + 1) * cellWidth;
+                double ink = integral(x1, y1) - integral(x0, y1) - integral(x1, y0) + integral(x0, y0);
+                target[oy * outputWidth + ox] = ink / norm;
+            }
+        }
+    }
+
+    /**
+     * Like the trained pipeline: area-averages to {@code outputSize * pool} and then keeps
+     * the maximum of every {@code pool x pool} block. With size 14 and pool 2 this gives
+     * the same input as scaling the canvas to 28x28 and calling {@link GameController#downscale28to14}.
+     *
+     * @param outputSize side length of the output
+     * @param pool       pooling factor (1 for plain area averaging)
+     * @param target     array of at least {@code outputSize * outputSize} elements, row-major
+     */
+    public void sampleMaxPooled(int outputSize, int pool, double[] target) {
+        if (pool < 1) {
+            throw new IllegalArgumentException("Pooling factor must be at least 1.");
+        }
+        if (pool == 1) {
+            sample(outputSize, outputSize, target);
+            return;
+        }
+        int sampledSize = outputSize * pool;
+        if (pooled.length < sampledSize * sampledSize) {
+            pooled = new double[sampledSize * sampledSize];
+        }
+        sample(sampledSize, sampledSize, pooled);
+        if (target.length < outputSize * outputSize) {
+            throw new IllegalArgumentException("Target must hold " + outputSize + "x" + outputSize + " elements.");
+        }
+
+        for (int y = 0; y < outputSize; y++) {
+            for (int x = 0; x < outputSize; x++) {
+                double max = 0;
+                for (int dy = 0; dy < pool; dy++) {
+                    int row = (y * pool + dy) * sampledSize + x * pool;
+                    for (int dx = 0; dx < pool; dx++) {
+                        if (pooled[row + dx] > max) max = pooled[row + dx];
+                    }
+                }
+                target[y * outputSize + x] = max;
+            }
+        }
+    }
+
+    /**
+     * Ink summed over {@code [0, x) x [0, y)} for fractional coordinates. Inside a pixel the
+     * integral is bilinear, so interpolating the four surrounding entries is exact.
+     */
+    private double integral(double x, double y) {
+        int ix = Math.min((int) x, width - 1);
+        int iy = Math.min((int) y, height - 1);
+        double fx = x - ix;
+        double fy = y - iy;
+        int stride = width + 1;
+        int index = iy * stride + ix;
+        long s00 = table[index];
+        long s10 = table[index + 1];
+        long s01 = table[index + stride];
+        long s11 = table[index + stride + 1];
+        return s00 * (1 - fx) * (1 - fy) + s10 * fx * (1 - fy) + s01 * (1 - fx) * fy + s11 * fx * fy;
+    }
+}
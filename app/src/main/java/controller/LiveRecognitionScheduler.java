@@ -0,0 +1,164 @@
+package controller;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.Timer;
+
+/**
+ * Triggers classifications while the user draws without exceeding a CPU budget.
+ * Drawing events only mark the drawing as changed; at most one classification runs
+ * at a time, and changes made meanwhile are coalesced into one pending update that
+ * starts once the previous one is done and the interval has passed.
+ * The interval follows the measured classification time, so slow machines
+ * guess less often instead of falling behind.
+ * All methods must be called on the event dispatch thread.
+ */
+public class LiveRecognitionScheduler {
+
+    /** Shortest interval between two guesses; faster updates are not visible anyway. */
+    private static final long MIN_INTERVAL_NANOS = 50_000_000L;
+
+    /** Weight of the newest measurement in the latency average. */
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final ClassificationService service;
+    private final Supplier<double[]> inputSource;
+    private final Consumer<ClassificationResult> onResult;
+    private final Consumer<Exception> onError;
+    private final Timer timer;
+    private double cpuBudget = 0.25;
+    private double averageCostNanos;
+    private long intervalNanos = MIN_INTERVAL_NANOS;
+    private long nextStartNanos;
+    private boolean inFlight;
+    private boolean pending;
+    private long generation;
+
+    /**
+     * Creates a scheduler. It should get its own service, so that other requests
+     * on a shared service cannot supersede the live guesses.
+     *
+     * @param service     service running the models
+     * @param inputSource returns the current 196-element model input; called on the event dispatch thread
+     * @param onResult    receives every live result on the event dispatch thread
+     * @param onError     receives the error of a failed guess on the event dispatch thread;
+     *                    later changes to the drawing are still classified
+     */
+    public LiveRecognitionScheduler(ClassificationService service, Supplier<double[]> inputSource,
+                                    Consumer<ClassificationResult> onResult, Consumer<Exception> onError) {
+        this.service = service;
+        this.inputSource = inputSource;
+        this.onResult = onResult;
+        this.onError = onError;
+        this.timer = new Timer(0, e -> launch());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Sets the share of one CPU core live guessing may use, e.g. 0.25 for a quarter.
+     *
+     * @param cpuBudget fraction between 0 (exclusive) and 1
+     */
+    public void setCpuBudget(double cpuBudget) {
+        if (cpuBudget <= 0 || cpuBudget > 1) {
+            throw new IllegalArgumentException("CPU budget must be in (0, 1].");
+        }
+        this.cpuBudget = cpuBudget;
+    }
+
+    /**
+     * Reports that the drawing changed. Cheap enough to call on every mouse event.
+     */
+    public void requestUpdate() {
+        pending = true;
+        if (!inFlight && !timer.isRunning()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Drops the pending update and ignores the result of a running one, e.g. after clearing.
+     */
+    public void cancel() {
+        generation++;
+        pending = false;
+        inFlight = false;
+        timer.stop();
+        service.cancel();
+    }
+
+    /**
+     * Returns the smoothed cost of one classification in nanoseconds.
+     */
+    public long getAverageCostNanos() {
+        return (long) averageCostNanos;
+    }
+
+    /**
+     * Returns the current interval between two guesses in nanoseconds.
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Starts the pending update now or as soon as the interval has passed.
+     */
+    private void schedule() {
+        long waitNanos = nextStartNanos - System.nanoTime();
+        if (waitNanos <= 0) {
+            launch();
+        } else {
+            timer.setInitialDelay((int) Math.max(1, waitNanos / 1_000_000L));
+            timer.restart();
+        }
+    }
+
+    /**
+     * Takes the current input and submits it; later changes wait for the next update.
+     */
+    private void launch() {
+        if (!pending || inFlight) return;
+        pending = false;
+        inFlight = true;
+        long id = generation;
+        long start = System.nanoTime();
+        double[] input = inputSource.get();
+        service.classify(input, System.nanoTime() - start, result -> complete(id, start, result),
+                error -> fail(id, start, error));
+    }
+
+    /**
+     * Updates the latency estimate, delivers the result and starts the next update if needed.
+     */
+    private void complete(long id, long start, ClassificationResult result) {
+        if (id != generation) return;
+        inFlight = false;
+
+        long cost = result.getTotalNanos();
+        averageCostNanos = averageCostNanos == 0 ? cost
+                : (1 - LATENCY_SMOOTHING) * averageCostNanos + LATENCY_SMOOTHING * cost;
+        intervalNanos = Math.max(MIN_INTERVAL_NANOS, (long) (averageCostNanos / cpuBudget));
+        nextStartNanos = start + intervalNanos;
+
+        onResult.accept(result);
+        if (pending) {
+            schedule();
+        }
+    }
+
+    /**
+     * Reports a failed guess and, like a successful one, frees the slot for the pending update.
+     * The latency estimate is kept, so a failing model does not speed up the retries.
+     */
+    private void fail(long id, long start, Exception error) {
+        if (id != generation) return;
+        inFlight = false;
+        nextStartNanos = start + intervalNanos;
+
+        onError.accept(error);
+        if (pending) {
+            schedule();
+        }
+    }
+}
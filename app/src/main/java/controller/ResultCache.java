@@ -0,0 +1,123 @@
+package controller;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used cache of classifier results, keyed by a hash of the
+ * pooled 14x14 model input. Repeated Recognize clicks on an unchanged canvas or
+ * replayed inputs skip the models entirely. Every entry keeps a copy of its input,
+ * so hash collisions are detected and treated as misses.
+ * All methods are synchronized; the cache can be shared between threads.
+ */
+public class ResultCache {
+
+    private final int capacity;
+    private final LinkedHashMap<Long, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * A cached input together with its raw category probabilities.
+     */
+    private static final class Entry {
+        final double[] input;
+        final double[] probabilities;
+
+        Entry(double[] input, double[] probabilities) {
+            this.input = input;
+            this.probabilities = probabilities;
+        }
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity maximum number of entries before the least recently used one is evicted
+     */
+    public ResultCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > ResultCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Looks up the probabilities for an input.
+     *
+     * @param input pooled model input
+     * @return a copy of the cached probabilities, or null on a miss
+     */
+    public synchronized double[] get(double[] input) {
+        Entry entry = entries.get(hash(input));
+        if (entry != null && Arrays.equals(entry.input, input)) {
+            hits++;
+            return entry.probabilities.clone();
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores the probabilities computed for an input, evicting the least recently used entry if full.
+     *
+     * @param input         pooled model input
+     * @param probabilities raw category probabilities for that input
+     */
+    public synchronized void put(double[] input, double[] probabilities) {
+        entries.put(hash(input), new Entry(input.clone(), probabilities.clone()));
+    }
+
+    /**
+     * Returns the number of lookups that were answered from the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to run the models.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of cached entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * 64-bit hash of the input values (FNV-1a over the bits of each double,
+     * followed by a final mix so that nearby inputs spread over the table).
+     */
+    static long hash(double[] input) {
+        long h = 0xcbf29ce484222325L;
+        for (double value : input) {
+            h ^= Double.doubleToLongBits(value);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
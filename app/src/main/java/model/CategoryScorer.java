@@ -0,0 +1,44 @@
+package model;
+
+/**
+ * Common interface of the engines that score all category models at once.
+ * Implementations differ in the numeric precision of their weights,
+ * but all of them take and return double arrays and are safe to share between threads.
+ */
+public interface CategoryScorer {
+
+    /**
+     * Returns the number of categories scored per pass.
+     */
+    int getCategoryCount();
+
+    /**
+     * Returns the number of outputs of each category model.
+     */
+    int getOutputSize();
+
+    /**
+     * Writes the positive ("yes") probability of every category into {@code probabilities}.
+     *
+     * @param input         input vector
+     * @param probabilities array with one slot per category
+     */
+    void score(double[] input, double[] probabilities);
+
+    /**
+     * Writes the full softmax output of every category model into {@code outputs},
+     * category by category.
+     *
+     * @param input   input vector
+     * @param outputs array of length categoryCount * outputSize
+     */
+    void scoreAll(double[] input, double[] outputs);
+
+    /**
+     * Scores many inputs at once.
+     *
+     * @param inputs        input vectors
+     * @param probabilities one array per input with one slot per category
+     */
+    void scoreBatch(double[][] inputs, double[][] probabilities);
+}
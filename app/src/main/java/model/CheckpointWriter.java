@@ -0,0 +1,118 @@
+package model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import model.Data.*;
+
+/**
+ * Saves training checkpoints on a background thread, so the training loop never waits for the disk.
+ * A checkpoint is a copy of the weights taken when it is submitted. While a write is running,
+ * newer checkpoints replace the waiting one instead of queueing up, so a burst of improvements
+ * costs at most one more write.
+ * <p>
+ * Every file is written to a temporary file and renamed over the old one. The binary
+ * {@link ModelFile} holds all weights with a checksum and is replaced first, so after a crash
+ * the model that gets loaded is always one complete checkpoint, even while the text files
+ * are still being replaced. The best error is written last and never claims a better model than the one on disk.
+ * Before the first file changes, the {@link ModelBundle} next to the directory and the
+ * quantized layers in it are deleted, because they would hold the previous weights.
+ */
+public class CheckpointWriter {
+
+    private final String directory;
+    private final ThreadPoolExecutor writer;
+    private final AtomicReference<Checkpoint> pending = new AtomicReference<>();
+
+    /**
+     * Weights and validation error of one saved model.
+     */
+    private static final class Checkpoint {
+        final int inputs;
+        final int hidden;
+        final int outputs;
+        final double[] weightsInputHidden;
+        final double[] biasHidden;
+        final double[] weightsHiddenOutput;
+        final double[] biasOutput;
+        final double error;
+
+        Checkpoint(NeuralNetz model, double error) {
+            this.inputs = model.getInputSize();
+            this.hidden = model.getHiddenSize();
+            this.outputs = model.getOutputSize();
+            this.weightsInputHidden = MathFunctions.toRowMajor(model.getWeightsInputHidden());
+            this.biasHidden = model.getBiasHidden().clone();
+            this.weightsHiddenOutput = MathFunctions.toRowMajor(model.getWeightsHiddenOutput());
+            this.biasOutput = model.getBiasOutput().clone();
+            this.error = error;
+        }
+    }
+
+    /**
+     * Creates a writer for a model directory.
+     * The writer thread ends when it has been idle for a second, so no shutdown is needed,
+     * and it is not a daemon, so a started write completes even if training fails.
+     *
+     * @param directory target directory ending with a slash
+     */
+    public CheckpointWriter(String directory) {
+        this.directory = directory;
+        this.writer = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "checkpoint-writer");
+            thread.setDaemon(false);
+            return thread;
+        });
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Copies the current weights of a network and schedules them to be written.
+     * Returns immediately; the copy is the only work done on the calling thread.
+     *
+     * @param model network to save
+     * @param error validation error of the network, stored as best error
+     */
+    public void submit(NeuralNetz model, double error) {
+        if (pending.getAndSet(new Checkpoint(model, error)) == null) {
+            // Nothing was waiting yet, so no scheduled write will pick this checkpoint up
+            writer.execute(this::writePending);
+        }
+    }
+
+    /**
+     * Waits until all submitted checkpoints are on disk.
+     */
+    public void flush() {
+        CompletableFuture.runAsync(() -> { }, writer).join();
+    }
+
+    /**
+     * Writes the newest waiting checkpoint, if a previous write has not taken it already.
+     */
+    private void writePending() {
+        Checkpoint checkpoint = pending.getAndSet(null);
+        if (checkpoint == null) {
+            return;
+        }
+        // Text files in tensor order, see ModelFile.TEXT_FILES
+        byte[][] texts = {
+                Data.toText(MathFunctions.fromRowMajor(checkpoint.weightsInputHidden, checkpoint.hidden, checkpoint.inputs)),
+                Data.toText(checkpoint.biasHidden),
+                Data.toText(MathFunctions.fromRowMajor(checkpoint.weightsHiddenOutput, checkpoint.outputs, checkpoint.hidden)),
+                Data.toText(checkpoint.biasOutput)
+        };
+        ModelBundle.invalidate(directory);
+        QuantizedClassifier.invalidate(directory);
+        ModelFile.save(directory + ModelFile.FILE_NAME, checkpoint.weightsInputHidden, checkpoint.biasHidden,
+                checkpoint.weightsHiddenOutput, checkpoint.biasOutput,
+                checkpoint.inputs, checkpoint.hidden, checkpoint.outputs);
+        for (int t = 0; t < texts.length; t++) {
+            Data.saveText(texts[t], directory + ModelFile.TEXT_FILES[t]);
+        }
+        Data.saveBestError(checkpoint.error, directory + "BestError.txt");
+    }
+}
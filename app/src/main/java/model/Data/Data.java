@@ -5,8 +5,12 @@ import java.util.*;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import model.*;
 
 /**
@@ -18,18 +22,10 @@ public class Data {
     /**
      * Saves a 2D matrix to a text file.
      * Each row of the matrix is written as a line in the file, with values separated by spaces.
+     * The file is replaced atomically, see {@link #moveAtomically}.
      */
     public static void saveToFile(double[][] matrix, String filename) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (double[] row : matrix) {
-                for (double value : row) {
-                    writer.write(value + " ");
-                }
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            System.out.println("Error saving to file: " + filename);
-        }
+        saveText(toText(matrix), filename);
     }
 
     /**
@@ -37,54 +33,162 @@ public class Data {
      * All values are written on a single line, separated by spaces.
      */
     public static void saveToFile(double[] vector, String filename) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (double value : vector) {
-                writer.write(value + " ");
+        saveText(toText(vector), filename);
+    }
+
+    /**
+     * Saves a 2D int8 matrix to a text file.
+     * Each row of the matrix is written as a line in the file, with values separated by spaces.
+     */
+    public static void saveToFile(byte[][] matrix, String filename) {
+        StringBuilder text = new StringBuilder();
+        for (byte[] row : matrix) {
+            for (byte value : row) {
+                text.append(value).append(' ');
+            }
+            text.append('\n');
+        }
+        saveText(text.toString().getBytes(StandardCharsets.US_ASCII), filename);
+    }
+
+    /**
+     * Returns the file content {@link #saveToFile(double[][], String)} writes for a matrix.
+     * Lines end with '\n' on every platform, so the files are the same wherever they were trained.
+     */
+    public static byte[] toText(double[][] matrix) {
+        StringBuilder text = new StringBuilder();
+        for (double[] row : matrix) {
+            for (double value : row) {
+                text.append(value).append(' ');
             }
-            writer.newLine();
+            text.append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the file content {@link #saveToFile(double[], String)} writes for a vector.
+     */
+    public static byte[] toText(double[] vector) {
+        return toText(new double[][] {vector});
+    }
+
+    /**
+     * Saves prepared file content, replacing the file atomically.
+     *
+     * @param text     content, e.g. from {@link #toText(double[][])}
+     * @param filename target file
+     */
+    public static void saveText(byte[] text, String filename) {
+        try {
+            writeAtomically(filename, text);
         } catch (IOException e) {
             System.out.println("Error saving to file: " + filename);
         }
     }
 
     /**
-     * Loads a 2D matrix from a text file.
-     * Assumes values are whitespace-separated.
+     * Writes a file next to its target, forces it to disk and renames it over the target,
+     * so readers and crashes only ever see the old or the complete new file.
      */
-    public static double[][] loadMatrixFromFile(String path, int rows, int cols) {
-        double[][] matrix = new double[rows][cols];
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-            for (int i = 0; i < rows; i++) {
-                String line = br.readLine();
-                if (line == null) break;
-                String[] values = line.trim().split("\\s+");
-                for (int j = 0; j < Math.min(cols, values.length); j++) {
-                    matrix[i][j] = Double.parseDouble(values[j]);
-                }
+    private static void writeAtomically(String filename, byte[] content) throws IOException {
+        Path target = Paths.get(filename);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                out.write(content);
+                out.getFD().sync();
             }
+            moveAtomically(temp, target);
         } catch (IOException e) {
-            System.out.println("Error reading from " + path + ": " + e.getMessage());
+            Files.deleteIfExists(temp);
+            throw e;
         }
+    }
+
+    /**
+     * Renames a completely written file over its target in one step.
+     * Falls back to a plain replacing move on file systems without atomic renames.
+     *
+     * @param source temporary file in the same directory as the target
+     * @param target file to replace
+     */
+    public static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Loads a 2D int8 matrix from a text file written by {@link #saveToFile(byte[][], String)}.
+     */
+    public static byte[][] loadByteMatrixFromFile(String path, int rows, int cols) {
+        byte[][] matrix = new byte[rows][cols];
+        readValues(path, rows, cols, (i, j, value) -> {
+            if (value != (byte) value) {
+                throw new IOException("line " + (i + 1) + ": " + value + " is not an int8 value");
+            }
+            matrix[i][j] = (byte) value;
+        });
+        return matrix;
+    }
+
+    /**
+     * Loads a 2D matrix from a text file.
+     * Expects one line of whitespace-separated values per row.
+     *
+     * @throws UncheckedIOException if the file cannot be read, has fewer or more values
+     *                              than the given shape or contains something that is not a number
+     */
+    public static double[][] loadMatrixFromFile(String path, int rows, int cols) {
+        double[][] matrix = new double[rows][cols];
+        readValues(path, rows, cols, (i, j, value) -> matrix[i][j] = value);
         return matrix;
     }
 
     /**
      * Loads a 1D vector from a file containing a single line of space-separated values.
+     *
+     * @throws UncheckedIOException if the file cannot be read or does not hold exactly {@code length} numbers
      */
     public static double[] loadVectorFromFile(String path, int length) {
         double[] vector = new double[length];
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-            String line = br.readLine();
-            if (line != null) {
-                String[] values = line.trim().split("\\s+");
-                for (int i = 0; i < Math.min(length, values.length); i++) {
-                    vector[i] = Double.parseDouble(values[i]);
+        readValues(path, 1, length, (i, j, value) -> vector[j] = value);
+        return vector;
+    }
+
+    /**
+     * Receives the values of a text weight file in row-major order.
+     */
+    private interface ValueSink {
+        void accept(int row, int col, double value) throws IOException;
+    }
+
+    // One tokenizer per thread, so its buffers are reused across files and models can load in parallel
+    private static final ThreadLocal<NumberTokenizer> tokenizer = ThreadLocal.withInitial(NumberTokenizer::new);
+
+    /**
+     * Streams a text weight file with exactly {@code rows} lines of {@code cols} values into a sink.
+     * Short or malformed files are reported instead of leaving zeros in the weights.
+     */
+    private static void readValues(String path, int rows, int cols, ValueSink sink) {
+        NumberTokenizer numbers = tokenizer.get();
+        try (InputStream in = new FileInputStream(path)) {
+            numbers.open(in);
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    sink.accept(i, j, numbers.nextOnLine());
                 }
+                numbers.endLine();
             }
+            numbers.expectEnd();
         } catch (IOException e) {
-            System.out.println("Error reading from " + path + ": " + e.getMessage());
+            throw new UncheckedIOException("Error reading from " + path + ": " + e.getMessage(), e);
+        } finally {
+            numbers.close();
         }
-        return vector;
     }
 
     /**
@@ -93,9 +197,7 @@ public class Data {
      */
     public static void saveBestError(double currentError, String filePath) {
         try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter(filePath));
-            writer.write(Double.toString(currentError));
-            writer.close();
+            writeAtomically(filePath, Double.toString(currentError).getBytes(StandardCharsets.US_ASCII));
             System.out.println("New best error saved: " + currentError);
         } catch (IOException e) {
             e.printStackTrace();
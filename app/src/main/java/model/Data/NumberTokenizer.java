@@ -0,0 +1,152 @@
+package model.Data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the whitespace-separated numbers of the text weight files without creating
+ * a String per line. Bytes are read into a reusable buffer and split into tokens there;
+ * only the short token of each value is handed to {@link Double#parseDouble}.
+ * Line numbers are tracked so that short or malformed files can be reported precisely.
+ * An instance can be reused for many files but belongs to one thread at a time.
+ */
+final class NumberTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] token = new byte[MAX_TOKEN_LENGTH];
+    private InputStream in;
+    private int position;
+    private int limit;
+    private int tokenLength;
+    private int line;
+
+    /**
+     * Starts reading from a new stream. The caller stays responsible for closing it.
+     */
+    void open(InputStream in) {
+        this.in = in;
+        position = 0;
+        limit = 0;
+        line = 1;
+    }
+
+    /**
+     * Releases the stream passed to {@link #open}.
+     */
+    void close() {
+        in = null;
+    }
+
+    /**
+     * Reads the next number, which has to be on the current line.
+     *
+     * @return the parsed value
+     * @throws IOException if the line has no more values or the value is not a number
+     */
+    double nextOnLine() throws IOException {
+        int c = skipBlanks();
+        if (c < 0 || c == '\n') {
+            throw error("fewer values than expected");
+        }
+        tokenLength = 0;
+        while (c >= 0 && !isWhitespace(c)) {
+            if (tokenLength == MAX_TOKEN_LENGTH) {
+                throw error("value is too long");
+            }
+            token[tokenLength++] = (byte) c;
+            position++;
+            c = peek();
+        }
+        return parseToken();
+    }
+
+    /**
+     * Moves to the start of the next line.
+     *
+     * @throws IOException if further values follow on the current line
+     */
+    void endLine() throws IOException {
+        int c = skipBlanks();
+        if (c < 0) {
+            return;
+        }
+        if (c != '\n') {
+            throw error("more values than expected");
+        }
+        position++;
+        line++;
+    }
+
+    /**
+     * Checks that only whitespace is left in the stream.
+     *
+     * @throws IOException if further values follow
+     */
+    void expectEnd() throws IOException {
+        int c = peek();
+        while (c >= 0 && isWhitespace(c)) {
+            if (c == '\n') {
+                line++;
+            }
+            position++;
+            c = peek();
+        }
+        if (c >= 0) {
+            throw error("unexpected data after the last value");
+        }
+    }
+
+    /**
+     * Creates an exception that names the current line.
+     */
+    IOException error(String message) {
+        return new IOException("line " + line + ": " + message);
+    }
+
+    /**
+     * Returns the next byte without consuming it, or -1 at the end of the stream.
+     */
+    private int peek() throws IOException {
+        if (position == limit) {
+            int read = in.read(buffer, 0, BUFFER_SIZE);
+            if (read <= 0) {
+                return -1;
+            }
+            position = 0;
+            limit = read;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    /**
+     * Skips spaces and tabs (but not line breaks) and returns the next byte.
+     */
+    private int skipBlanks() throws IOException {
+        int c = peek();
+        while (c >= 0 && c != '\n' && isWhitespace(c)) {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Parses the current token with {@link Double#parseDouble}.
+     */
+    private double parseToken() throws IOException {
+        String text = new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw error("'" + text + "' is not a number");
+        }
+    }
+}
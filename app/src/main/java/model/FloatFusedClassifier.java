@@ -0,0 +1,179 @@
+package model;
+
+/**
+ * Float32 counterpart of {@link FusedClassifier}. The first layers of all
+ * category models are stacked into one float matrix and the second layer is
+ * applied block-diagonally. Inputs are narrowed to float once per call.
+ */
+public class FloatFusedClassifier implements CategoryScorer {
+
+    private final int categoryCount;
+    private final int inputSize;
+    private final int hiddenSize;
+    private final int outputSize;
+
+    // Stacked first layer: (categoryCount * hiddenSize) x inputSize, row-major
+    private final float[] weightsInputHidden;
+    private final float[] biasHidden;
+
+    // Block-diagonal second layer: one outputSize x hiddenSize block per category
+    private final float[] weightsHiddenOutput;
+    private final float[] biasOutput;
+
+    // Scratch buffers for callers that do not pass their own context
+    private final ThreadLocal<FloatInferenceContext> threadContext;
+
+    /**
+     * Builds the fused weights from already loaded float models.
+     * All models must have the same layer sizes.
+     *
+     * @param models one trained network per category
+     */
+    public FloatFusedClassifier(NeuralNetzFloat[] models) {
+        if (models.length == 0) {
+            throw new IllegalArgumentException("At least one model is required.");
+        }
+        this.categoryCount = models.length;
+        this.inputSize = models[0].getInputSize();
+        this.hiddenSize = models[0].getHiddenSize();
+        this.outputSize = models[0].getOutputSize();
+
+        int stackedRows = categoryCount * hiddenSize;
+        int firstSize = hiddenSize * inputSize;
+        int blockSize = outputSize * hiddenSize;
+        this.weightsInputHidden = new float[stackedRows * inputSize];
+        this.biasHidden = new float[stackedRows];
+        this.weightsHiddenOutput = new float[categoryCount * blockSize];
+        this.biasOutput = new float[categoryCount * outputSize];
+
+        for (int c = 0; c < categoryCount; c++) {
+            NeuralNetzFloat model = models[c];
+            if (model.getInputSize() != inputSize || model.getHiddenSize() != hiddenSize || model.getOutputSize() != outputSize) {
+                throw new IllegalArgumentException("All models must have the same layer sizes.");
+            }
+            System.arraycopy(model.getWeightsInputHidden(), 0, weightsInputHidden, c * firstSize, firstSize);
+            System.arraycopy(model.getBiasHidden(), 0, biasHidden, c * hiddenSize, hiddenSize);
+            System.arraycopy(model.getWeightsHiddenOutput(), 0, weightsHiddenOutput, c * blockSize, blockSize);
+            System.arraycopy(model.getBiasOutput(), 0, biasOutput, c * outputSize, outputSize);
+        }
+
+        this.threadContext = ThreadLocal.withInitial(this::newContext);
+    }
+
+    @Override
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * Creates a new set of intermediate buffers sized for the fused network.
+     */
+    public FloatInferenceContext newContext() {
+        return new FloatInferenceContext(inputSize, categoryCount * hiddenSize, categoryCount * outputSize);
+    }
+
+    @Override
+    public void score(double[] input, double[] probabilities) {
+        score(input, probabilities, threadContext.get());
+    }
+
+    /**
+     * Scores all categories using a caller-owned context for intermediate values.
+     *
+     * @param input         input vector of length inputSize
+     * @param probabilities array with one slot per category
+     * @param context       buffers created by {@link #newContext()}
+     */
+    public void score(double[] input, double[] probabilities, FloatInferenceContext context) {
+        if (probabilities.length < categoryCount) {
+            throw new IllegalArgumentException("Probability array must have one slot per category.");
+        }
+        forwardStacked(input, context);
+        for (int c = 0; c < categoryCount; c++) {
+            // Index 0 is the "yes" probability
+            probabilities[c] = softmaxBlock(context.finalInput, c * outputSize, context.outputs)[0];
+        }
+    }
+
+    @Override
+    public void scoreAll(double[] input, double[] outputs) {
+        if (outputs.length < categoryCount * outputSize) {
+            throw new IllegalArgumentException("Output array must hold categoryCount * outputSize values.");
+        }
+        FloatInferenceContext context = threadContext.get();
+        forwardStacked(input, context);
+        for (int c = 0; c < categoryCount; c++) {
+            float[] block = softmaxBlock(context.finalInput, c * outputSize, context.outputs);
+            for (int o = 0; o < outputSize; o++) {
+                outputs[c * outputSize + o] = block[o];
+            }
+        }
+    }
+
+    /**
+     * Scores many inputs one after another with a single context.
+     */
+    @Override
+    public void scoreBatch(double[][] inputs, double[][] probabilities) {
+        if (probabilities.length < inputs.length) {
+            throw new IllegalArgumentException("Probability arrays must be provided for every input.");
+        }
+        FloatInferenceContext context = newContext();
+        for (int s = 0; s < inputs.length; s++) {
+            score(inputs[s], probabilities[s], context);
+        }
+    }
+
+    /**
+     * Narrows the input and runs both layers, leaving the raw outputs in the context.
+     */
+    private void forwardStacked(double[] input, FloatInferenceContext context) {
+        context.requireSize(inputSize, categoryCount * hiddenSize, categoryCount * outputSize);
+        if (input.length != inputSize) {
+            throw new IllegalArgumentException("Matrix columns must match vector size.");
+        }
+        MathFunctions.toFloat(input, context.input);
+        MathFunctions.multiplyAdd(weightsInputHidden, categoryCount * hiddenSize, inputSize, context.input, biasHidden, context.hiddenInput);
+        MathFunctions.applyReLU(context.hiddenInput, context.hiddenOutput);
+
+        float[] hidden = context.hiddenOutput;
+        float[] logits = context.finalInput;
+        for (int c = 0; c < categoryCount; c++) {
+            int hiddenOffset = c * hiddenSize;
+            int blockOffset = c * outputSize * hiddenSize;
+            for (int o = 0; o < outputSize; o++) {
+                float sum = biasOutput[c * outputSize + o];
+                int rowOffset = blockOffset + o * hiddenSize;
+                for (int h = 0; h < hiddenSize; h++) {
+                    sum += weightsHiddenOutput[rowOffset + h] * hidden[hiddenOffset + h];
+                }
+                logits[c * outputSize + o] = sum;
+            }
+        }
+    }
+
+    /**
+     * Applies softmax to one category block of the logits and returns the
+     * probabilities in the first outputSize slots of the given buffer.
+     */
+    private float[] softmaxBlock(float[] logits, int offset, float[] buffer) {
+        float max = logits[offset];
+        for (int o = 1; o < outputSize; o++) {
+            max = Math.max(max, logits[offset + o]);
+        }
+        float sum = 0f;
+        for (int o = 0; o < outputSize; o++) {
+            buffer[o] = (float) Math.exp(logits[offset + o] - max);
+            sum += buffer[o];
+        }
+        for (int o = 0; o < outputSize; o++) {
+            buffer[o] /= sum;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * Float32 counterpart of {@link InferenceContext}: the intermediate buffers of
+ * one forward pass through a float network. A context belongs to a single
+ * thread at a time, while the weights can be shared.
+ */
+public class FloatInferenceContext {
+
+    final float[] input;
+    final float[] hiddenInput;
+    final float[] hiddenOutput;
+    final float[] finalInput;
+    final float[] outputs;
+
+    /**
+     * Creates a context with buffers for the given layer sizes.
+     *
+     * @param inputSize  number of input nodes
+     * @param hiddenSize number of hidden nodes
+     * @param outputSize number of output nodes
+     */
+    public FloatInferenceContext(int inputSize, int hiddenSize, int outputSize) {
+        this.input = new float[inputSize];
+        this.hiddenInput = new float[hiddenSize];
+        this.hiddenOutput = new float[hiddenSize];
+        this.finalInput = new float[outputSize];
+        this.outputs = new float[outputSize];
+    }
+
+    /**
+     * Checks that this context was created for the given layer sizes.
+     */
+    void requireSize(int inputSize, int hiddenSize, int outputSize) {
+        if (input.length != inputSize || hiddenInput.length != hiddenSize || finalInput.length != outputSize) {
+            throw new IllegalArgumentException("Context does not match the network layer sizes.");
+        }
+    }
+}
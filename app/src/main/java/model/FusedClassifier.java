@@ -0,0 +1,276 @@
+package model;
+
+/**
+ * Scores several one-vs-rest category networks in a single pass.
+ * The input-to-hidden matrices of all models are stacked into one
+ * (categories * hidden) x inputs block, so the input vector is read once.
+ * The hidden-to-output stage is block-diagonal: every category only sees
+ * its own slice of the hidden layer.
+ * The weights are never written after construction, so one instance
+ * can be shared between threads.
+ * Sketches are mostly blank canvas, so when few input pixels are non-zero
+ * the first layer only accumulates the weight columns of those pixels.
+ */
+public class FusedClassifier implements CategoryScorer {
+
+    // Number of samples whose hidden layers are kept in memory at once during batch scoring
+    private static final int BATCH_CHUNK_SIZE = 1024;
+
+    // Share of non-zero inputs below which the sparse first-layer kernel is faster.
+    // The dense kernel gains more from SIMD, so the crossover is lower when it is enabled.
+    private static final double SPARSE_DENSITY_THRESHOLD = 0.5;
+    private static final double SPARSE_DENSITY_THRESHOLD_SIMD = 0.25;
+
+    private final int categoryCount;
+    private final int inputSize;
+    private final int hiddenSize;
+    private final int outputSize;
+
+    // Stacked first layer: (categoryCount * hiddenSize) x inputSize, row-major
+    private final double[] weightsInputHidden;
+    private final double[] biasHidden;
+
+    // Column-major copy of the stacked first layer for the sparse kernel
+    private final double[] weightsInputHiddenColumns;
+
+    // Block-diagonal second layer: one outputSize x hiddenSize block per category
+    private final double[] weightsHiddenOutput;
+    private final double[] biasOutput;
+
+    // Scratch buffers for callers that do not pass their own context
+    private final ThreadLocal<InferenceContext> threadContext;
+
+    /**
+     * Builds the fused weights from already loaded category models.
+     * All models must have the same layer sizes.
+     *
+     * @param models one trained network per category
+     */
+    public FusedClassifier(NeuralNetz[] models) {
+        if (models.length == 0) {
+            throw new IllegalArgumentException("At least one model is required.");
+        }
+        double[][] firstWeights = models[0].getWeightsInputHidden();
+        this.categoryCount = models.length;
+        this.hiddenSize = firstWeights.length;
+        this.inputSize = firstWeights[0].length;
+        this.outputSize = models[0].getOutputSize();
+
+        int stackedRows = categoryCount * hiddenSize;
+        int blockSize = outputSize * hiddenSize;
+        this.weightsInputHidden = new double[stackedRows * inputSize];
+        this.biasHidden = new double[stackedRows];
+        this.weightsHiddenOutput = new double[categoryCount * blockSize];
+        this.biasOutput = new double[categoryCount * outputSize];
+
+        for (int c = 0; c < categoryCount; c++) {
+            NeuralNetz model = models[c];
+            double[][] wih = model.getWeightsInputHidden();
+            double[][] who = model.getWeightsHiddenOutput();
+            if (wih.length != hiddenSize || wih[0].length != inputSize || who.length != outputSize) {
+                throw new IllegalArgumentException("All models must have the same layer sizes.");
+            }
+            System.arraycopy(MathFunctions.toRowMajor(wih), 0, weightsInputHidden, c * hiddenSize * inputSize, hiddenSize * inputSize);
+            System.arraycopy(model.getBiasHidden(), 0, biasHidden, c * hiddenSize, hiddenSize);
+            System.arraycopy(MathFunctions.toRowMajor(who), 0, weightsHiddenOutput, c * blockSize, blockSize);
+            System.arraycopy(model.getBiasOutput(), 0, biasOutput, c * outputSize, outputSize);
+        }
+
+        this.weightsInputHiddenColumns = MathFunctions.transpose(weightsInputHidden, stackedRows, inputSize);
+        this.threadContext = ThreadLocal.withInitial(this::newContext);
+    }
+
+    /**
+     * Returns the number of categories scored per pass.
+     */
+    @Override
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    /**
+     * Returns the number of outputs of each category model.
+     */
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * Creates a new set of intermediate buffers sized for the fused network.
+     */
+    public InferenceContext newContext() {
+        return new InferenceContext(inputSize, categoryCount * hiddenSize, categoryCount * outputSize);
+    }
+
+    /**
+     * Scores all categories and writes the full softmax output of every model
+     * into {@code outputs}, category by category.
+     * Uses a buffer owned by the calling thread.
+     *
+     * @param input   input vector of length inputSize
+     * @param outputs array of length categoryCount * outputSize
+     */
+    @Override
+    public void scoreAll(double[] input, double[] outputs) {
+        scoreAll(input, outputs, threadContext.get());
+    }
+
+    /**
+     * Scores all categories using a caller-owned context for intermediate values.
+     *
+     * @param input   input vector of length inputSize
+     * @param outputs array of length categoryCount * outputSize
+     * @param context buffers created by {@link #newContext()}
+     */
+    public void scoreAll(double[] input, double[] outputs, InferenceContext context) {
+        if (outputs.length < categoryCount * outputSize) {
+            throw new IllegalArgumentException("Output array must hold categoryCount * outputSize values.");
+        }
+        forwardStacked(input, context);
+        for (int c = 0; c < categoryCount; c++) {
+            softmaxBlock(context.finalInput, c * outputSize, outputs);
+        }
+    }
+
+    /**
+     * Scores all categories and writes the positive ("yes") probability of
+     * every category into {@code probabilities}.
+     * Uses a buffer owned by the calling thread.
+     *
+     * @param input         input vector of length inputSize
+     * @param probabilities array with one slot per category
+     */
+    @Override
+    public void score(double[] input, double[] probabilities) {
+        score(input, probabilities, threadContext.get());
+    }
+
+    /**
+     * Scores all categories using a caller-owned context for intermediate values.
+     *
+     * @param input         input vector of length inputSize
+     * @param probabilities array with one slot per category
+     * @param context       buffers created by {@link #newContext()}
+     */
+    public void score(double[] input, double[] probabilities, InferenceContext context) {
+        if (probabilities.length < categoryCount) {
+            throw new IllegalArgumentException("Probability array must have one slot per category.");
+        }
+        forwardStacked(input, context);
+        for (int c = 0; c < categoryCount; c++) {
+            // Index 0 is the "yes" probability
+            probabilities[c] = positiveProbability(context.finalInput, c * outputSize);
+        }
+    }
+
+    /**
+     * Scores many inputs at once and writes the positive probability of every
+     * category for every input. The stacked first layer runs as a cache-blocked
+     * matrix-matrix product over chunks of the batch.
+     *
+     * @param inputs        input vectors, each of length inputSize
+     * @param probabilities one array per input with one slot per category
+     */
+    @Override
+    public void scoreBatch(double[][] inputs, double[][] probabilities) {
+        if (probabilities.length < inputs.length) {
+            throw new IllegalArgumentException("Probability arrays must be provided for every input.");
+        }
+        int stackedRows = categoryCount * hiddenSize;
+        int chunk = Math.min(BATCH_CHUNK_SIZE, inputs.length);
+        double[][] inputChunk = new double[chunk][];
+        double[][] hiddenChunk = new double[chunk][stackedRows];
+        double[] logits = new double[categoryCount * outputSize];
+
+        for (int start = 0; start < inputs.length; start += chunk) {
+            int count = Math.min(chunk, inputs.length - start);
+            System.arraycopy(inputs, start, inputChunk, 0, count);
+            MathFunctions.multiplyAddBatch(weightsInputHidden, stackedRows, inputSize, inputChunk, count, biasHidden, hiddenChunk);
+
+            for (int s = 0; s < count; s++) {
+                double[] hidden = hiddenChunk[s];
+                MathFunctions.applyReLU(hidden, hidden);
+                outputStage(hidden, logits);
+                double[] target = probabilities[start + s];
+                for (int c = 0; c < categoryCount; c++) {
+                    target[c] = positiveProbability(logits, c * outputSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the stacked first layer and the block-diagonal second layer,
+     * leaving the raw outputs of every category in the context.
+     */
+    private void forwardStacked(double[] input, InferenceContext context) {
+        context.requireSize(categoryCount * hiddenSize, categoryCount * outputSize);
+        int stackedRows = categoryCount * hiddenSize;
+        if (input.length == inputSize && context.nonZeroIndices.length >= inputSize) {
+            int count = MathFunctions.nonZeroIndices(input, context.nonZeroIndices);
+            double threshold = SimdSupport.isEnabled() ? SPARSE_DENSITY_THRESHOLD_SIMD : SPARSE_DENSITY_THRESHOLD;
+            if (count < threshold * inputSize) {
+                MathFunctions.multiplyAddSparse(weightsInputHiddenColumns, stackedRows, inputSize, input,
+                        context.nonZeroIndices, count, biasHidden, context.hiddenInput);
+            } else {
+                MathFunctions.multiplyAdd(weightsInputHidden, stackedRows, inputSize, input, biasHidden, context.hiddenInput);
+            }
+        } else {
+            MathFunctions.multiplyAdd(weightsInputHidden, stackedRows, inputSize, input, biasHidden, context.hiddenInput);
+        }
+        MathFunctions.applyReLU(context.hiddenInput, context.hiddenOutput);
+        outputStage(context.hiddenOutput, context.finalInput);
+    }
+
+    /**
+     * Applies the block-diagonal second layer to an activated stacked hidden layer.
+     */
+    private void outputStage(double[] hidden, double[] logits) {
+        for (int c = 0; c < categoryCount; c++) {
+            int hiddenOffset = c * hiddenSize;
+            int blockOffset = c * outputSize * hiddenSize;
+            for (int o = 0; o < outputSize; o++) {
+                double sum = biasOutput[c * outputSize + o];
+                int rowOffset = blockOffset + o * hiddenSize;
+                for (int h = 0; h < hiddenSize; h++) {
+                    sum += weightsHiddenOutput[rowOffset + h] * hidden[hiddenOffset + h];
+                }
+                logits[c * outputSize + o] = sum;
+            }
+        }
+    }
+
+    /**
+     * Applies softmax to one category block of the logits.
+     */
+    private void softmaxBlock(double[] logits, int offset, double[] outputs) {
+        double max = logits[offset];
+        for (int o = 1; o < outputSize; o++) {
+            max = Math.max(max, logits[offset + o]);
+        }
+        double sum = 0.0;
+        for (int o = 0; o < outputSize; o++) {
+            outputs[offset + o] = Math.exp(logits[offset + o] - max);
+            sum += outputs[offset + o];
+        }
+        for (int o = 0; o < outputSize; o++) {
+            outputs[offset + o] /= sum;
+        }
+    }
+
+    /**
+     * Returns the softmax probability of the first output of one category block.
+     */
+    private double positiveProbability(double[] logits, int offset) {
+        double max = logits[offset];
+        for (int o = 1; o < outputSize; o++) {
+            max = Math.max(max, logits[offset + o]);
+        }
+        double sum = 0.0;
+        for (int o = 0; o < outputSize; o++) {
+            sum += Math.exp(logits[offset + o] - max);
+        }
+        return Math.exp(logits[offset] - max) / sum;
+    }
+}
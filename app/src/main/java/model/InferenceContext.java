@@ -0,0 +1,63 @@
+package model;
+
+/**
+ * Holds the intermediate buffers of one forward pass.
+ * A context belongs to a single thread at a time, while the network weights
+ * it is used with can be shared by any number of threads.
+ * Obtain one with {@link NeuralNetz#newContext()} or {@link FusedClassifier#newContext()}.
+ */
+public class InferenceContext {
+
+    final double[] hiddenInput;
+    final double[] hiddenOutput;
+    final double[] finalInput;
+    final int[] nonZeroIndices;
+
+    /**
+     * Creates a context with buffers for the given layer sizes.
+     *
+     * @param hiddenSize number of hidden nodes
+     * @param outputSize number of output nodes
+     */
+    public InferenceContext(int hiddenSize, int outputSize) {
+        this(0, hiddenSize, outputSize);
+    }
+
+    /**
+     * Creates a context that can also hold the non-zero input indices
+     * used by the sparse first-layer kernel.
+     *
+     * @param inputSize  number of input nodes
+     * @param hiddenSize number of hidden nodes
+     * @param outputSize number of output nodes
+     */
+    public InferenceContext(int inputSize, int hiddenSize, int outputSize) {
+        this.hiddenInput = new double[hiddenSize];
+        this.hiddenOutput = new double[hiddenSize];
+        this.finalInput = new double[outputSize];
+        this.nonZeroIndices = new int[inputSize];
+    }
+
+    /**
+     * Returns the raw hidden layer values of the last forward pass (before activation).
+     */
+    public double[] getHiddenInput() {
+        return hiddenInput;
+    }
+
+    /**
+     * Returns the hidden layer values of the last forward pass (after activation).
+     */
+    public double[] getHiddenOutput() {
+        return hiddenOutput;
+    }
+
+    /**
+     * Checks that this context was created for the given layer sizes.
+     */
+    void requireSize(int hiddenSize, int outputSize) {
+        if (hiddenInput.length != hiddenSize || finalInput.length != outputSize) {
+            throw new IllegalArgumentException("Context does not match the network layer sizes.");
+        }
+    }
+}
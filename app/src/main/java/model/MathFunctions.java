@@ -1,13 +1,19 @@
 package model;
-import java.util.Arrays;
 
 /**
  * MathFunctions interface provides essential mathematical operations
  * used in neural networks, including activation functions, their derivatives,
  * loss functions, dot product, softmax, and normalization.
+ * The vector kernels switch to SIMD implementations when {@link SimdSupport} is enabled.
  */
 public interface MathFunctions {
 
+    /** Number of samples that share one pass over a weight row in {@link #multiplyAddBatch}. */
+    int SAMPLE_BLOCK_SIZE = 32;
+
+    /** Number of matrix columns processed per tile in {@link #multiplyAddBatch}. */
+    int COLUMN_BLOCK_SIZE = 128;
+
     /**
      * Sigmoid activation function.
      *
@@ -72,10 +78,40 @@ public interface MathFunctions {
      */
     public static double[] applyReLU(double[] vector) {
         double[] result = new double[vector.length];
+        applyReLU(vector, result);
+        return result;
+    }
+
+    /**
+     * Applies the ReLU function element-wise, writing into a caller-provided array.
+     *
+     * @param vector Input vector.
+     * @param result Output vector (may be the same array as the input).
+     */
+    public static void applyReLU(double[] vector, double[] result) {
+        if (SimdSupport.isEnabled()) {
+            VectorKernels.applyReLU(vector, result);
+            return;
+        }
         for (int i = 0; i < vector.length; i++) {
             result[i] = Math.max(0, vector[i]);
         }
-        return result;
+    }
+
+    /**
+     * Float32 variant of {@link #applyReLU(double[], double[])}.
+     *
+     * @param vector Input vector.
+     * @param result Output vector (may be the same array as the input).
+     */
+    public static void applyReLU(float[] vector, float[] result) {
+        if (SimdSupport.isEnabled()) {
+            VectorKernels.applyReLU(vector, result);
+            return;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = Math.max(0f, vector[i]);
+        }
     }
 
     /**
@@ -144,6 +180,9 @@ public interface MathFunctions {
         if (a.length != b.length) {
             throw new IllegalArgumentException("Vectors must have the same length.");
         }
+        if (SimdSupport.isEnabled()) {
+            return VectorKernels.dot(a, 0, b, 0, a.length);
+        }
         double result = 0.0;
         for (int i = 0; i < a.length; i++) {
             result += a[i] * b[i];
@@ -214,6 +253,12 @@ public interface MathFunctions {
             throw new IllegalArgumentException("Matrix columns must match vector size.");
         }
         double[] result = new double[matrix.length];
+        if (SimdSupport.isEnabled()) {
+            for (int i = 0; i < matrix.length; i++) {
+                result[i] = VectorKernels.dot(matrix[i], 0, vector, 0, vector.length);
+            }
+            return result;
+        }
         for (int i = 0; i < matrix.length; i++) {
             result[i] = 0.0;
             for (int j = 0; j < vector.length; j++) {
@@ -223,6 +268,249 @@ public interface MathFunctions {
         return result;
     }
 
+    /**
+     * Multiplies a flat row-major matrix by a vector and adds a bias,
+     * writing the result into a caller-provided array.
+     * Nothing is allocated, so this can be used on hot inference paths.
+     *
+     * @param matrix row-major matrix with {@code rows * cols} entries.
+     * @param rows   number of matrix rows.
+     * @param cols   number of matrix columns.
+     * @param vector 1D array of length {@code cols}.
+     * @param bias   1D array of length {@code rows}.
+     * @param result 1D array of length {@code rows} that receives the result.
+     * @throws IllegalArgumentException if dimensions do not match.
+     */
+    public static void multiplyAdd(double[] matrix, int rows, int cols, double[] vector, double[] bias, double[] result) {
+        if (matrix.length != rows * cols || vector.length != cols) {
+            throw new IllegalArgumentException("Matrix columns must match vector size.");
+        }
+        if (bias.length != rows || result.length < rows) {
+            throw new IllegalArgumentException("Bias and result must match matrix rows.");
+        }
+        if (SimdSupport.isEnabled()) {
+            for (int i = 0; i < rows; i++) {
+                result[i] = bias[i] + VectorKernels.dot(matrix, i * cols, vector, 0, cols);
+            }
+            return;
+        }
+        for (int i = 0; i < rows; i++) {
+            double sum = bias[i];
+            int offset = i * cols;
+            for (int j = 0; j < cols; j++) {
+                sum += matrix[offset + j] * vector[j];
+            }
+            result[i] = sum;
+        }
+    }
+
+    /**
+     * Collects the indices of the non-zero entries of a vector.
+     *
+     * @param vector  Input vector.
+     * @param indices Array of at least the vector length receiving the indices.
+     * @return Number of indices written.
+     */
+    public static int nonZeroIndices(double[] vector, int[] indices) {
+        int count = 0;
+        for (int j = 0; j < vector.length; j++) {
+            if (vector[j] != 0.0) {
+                indices[count++] = j;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Multiplies a column-major matrix by a sparse vector and adds a bias.
+     * Only the columns listed in {@code indices} are read, so the cost grows
+     * with the number of non-zero inputs instead of the vector length.
+     *
+     * @param columns column-major matrix with {@code rows * cols} entries (see {@link #transpose}).
+     * @param rows    number of matrix rows.
+     * @param cols    number of matrix columns.
+     * @param vector  1D array of length {@code cols}.
+     * @param indices indices of the non-zero entries of the vector.
+     * @param count   number of valid entries in {@code indices}.
+     * @param bias    1D array of length {@code rows}.
+     * @param result  1D array of length {@code rows} that receives the result.
+     * @throws IllegalArgumentException if dimensions do not match.
+     */
+    public static void multiplyAddSparse(double[] columns, int rows, int cols, double[] vector, int[] indices, int count,
+                                         double[] bias, double[] result) {
+        if (columns.length != rows * cols || vector.length != cols) {
+            throw new IllegalArgumentException("Matrix columns must match vector size.");
+        }
+        if (bias.length != rows || result.length < rows) {
+            throw new IllegalArgumentException("Bias and result must match matrix rows.");
+        }
+        System.arraycopy(bias, 0, result, 0, rows);
+        boolean simd = SimdSupport.isEnabled();
+        for (int k = 0; k < count; k++) {
+            int j = indices[k];
+            double value = vector[j];
+            int offset = j * rows;
+            if (simd) {
+                VectorKernels.axpy(value, columns, offset, result, rows);
+            } else {
+                for (int i = 0; i < rows; i++) {
+                    result[i] += columns[offset + i] * value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Transposes a flat row-major matrix into a column-major one.
+     *
+     * @param matrix row-major matrix with {@code rows * cols} entries.
+     * @param rows   number of matrix rows.
+     * @param cols   number of matrix columns.
+     * @return Flat array in which column j occupies entries {@code j * rows} to {@code j * rows + rows - 1}.
+     */
+    public static double[] transpose(double[] matrix, int rows, int cols) {
+        double[] result = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                result[j * rows + i] = matrix[i * cols + j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Float32 variant of {@link #multiplyAdd(double[], int, int, double[], double[], double[])}.
+     *
+     * @param matrix row-major matrix with {@code rows * cols} entries.
+     * @param rows   number of matrix rows.
+     * @param cols   number of matrix columns.
+     * @param vector 1D array of length {@code cols}.
+     * @param bias   1D array of length {@code rows}.
+     * @param result 1D array of length {@code rows} that receives the result.
+     * @throws IllegalArgumentException if dimensions do not match.
+     */
+    public static void multiplyAdd(float[] matrix, int rows, int cols, float[] vector, float[] bias, float[] result) {
+        if (matrix.length != rows * cols || vector.length != cols) {
+            throw new IllegalArgumentException("Matrix columns must match vector size.");
+        }
+        if (bias.length != rows || result.length < rows) {
+            throw new IllegalArgumentException("Bias and result must match matrix rows.");
+        }
+        if (SimdSupport.isEnabled()) {
+            for (int i = 0; i < rows; i++) {
+                result[i] = bias[i] + VectorKernels.dot(matrix, i * cols, vector, 0, cols);
+            }
+            return;
+        }
+        for (int i = 0; i < rows; i++) {
+            float sum = bias[i];
+            int offset = i * cols;
+            for (int j = 0; j < cols; j++) {
+                sum += matrix[offset + j] * vector[j];
+            }
+            result[i] = sum;
+        }
+    }
+
+    /**
+     * Multiplies a flat row-major matrix by a batch of vectors and adds a bias
+     * to every result. The work is tiled so that each block of weights is reused
+     * for a whole block of samples while it is still in cache, instead of
+     * streaming the full matrix once per sample.
+     *
+     * @param matrix  row-major matrix with {@code rows * cols} entries.
+     * @param rows    number of matrix rows.
+     * @param cols    number of matrix columns.
+     * @param inputs  input vectors, each of length {@code cols}.
+     * @param count   number of input vectors to process, starting at index 0.
+     * @param bias    1D array of length {@code rows}.
+     * @param results output vectors, each of length {@code rows}.
+     * @throws IllegalArgumentException if dimensions do not match.
+     */
+    public static void multiplyAddBatch(double[] matrix, int rows, int cols, double[][] inputs, int count,
+                                        double[] bias, double[][] results) {
+        if (matrix.length != rows * cols || bias.length != rows) {
+            throw new IllegalArgumentException("Matrix and bias dimensions do not match.");
+        }
+        if (inputs.length < count || results.length < count) {
+            throw new IllegalArgumentException("Inputs and results must hold count vectors.");
+        }
+
+        for (int s0 = 0; s0 < count; s0 += SAMPLE_BLOCK_SIZE) {
+            int s1 = Math.min(count, s0 + SAMPLE_BLOCK_SIZE);
+            for (int s = s0; s < s1; s++) {
+                if (inputs[s].length != cols) {
+                    throw new IllegalArgumentException("Matrix columns must match vector size.");
+                }
+                System.arraycopy(bias, 0, results[s], 0, rows);
+            }
+
+            boolean simd = SimdSupport.isEnabled();
+            for (int j0 = 0; j0 < cols; j0 += COLUMN_BLOCK_SIZE) {
+                int j1 = Math.min(cols, j0 + COLUMN_BLOCK_SIZE);
+                for (int i = 0; i < rows; i++) {
+                    int offset = i * cols;
+                    for (int s = s0; s < s1; s++) {
+                        double[] vector = inputs[s];
+                        double sum = 0.0;
+                        if (simd) {
+                            sum = VectorKernels.dot(matrix, offset + j0, vector, j0, j1 - j0);
+                        } else {
+                            for (int j = j0; j < j1; j++) {
+                                sum += matrix[offset + j] * vector[j];
+                            }
+                        }
+                        results[s][i] += sum;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a 2D matrix into a single row-major array.
+     *
+     * @param matrix 2D array representing the matrix.
+     * @return Flat array with {@code rows * cols} entries.
+     */
+    public static double[] toRowMajor(double[][] matrix) {
+        int rows = matrix.length;
+        int cols = matrix[0].length;
+        double[] flat = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(matrix[i], 0, flat, i * cols, cols);
+        }
+        return flat;
+    }
+
+    /**
+     * Copies a row-major array into a new 2D matrix.
+     *
+     * @param flat Flat array with {@code rows * cols} entries.
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @return 2D array representing the matrix.
+     */
+    public static double[][] fromRowMajor(double[] flat, int rows, int cols) {
+        double[][] matrix = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(flat, i * cols, matrix[i], 0, cols);
+        }
+        return matrix;
+    }
+
+    /**
+     * Narrows a double vector to float32, writing into a caller-provided array.
+     *
+     * @param vector Input vector.
+     * @param result Array of at least the same length receiving the float values.
+     */
+    public static void toFloat(double[] vector, float[] result) {
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) vector[i];
+        }
+    }
+
     /**
      * Adds two vectors element-wise.
      *
@@ -236,11 +524,37 @@ public interface MathFunctions {
             throw new IllegalArgumentException("Vectors must have the same length.");
         }
         double[] result = new double[a.length];
+        if (SimdSupport.isEnabled()) {
+            VectorKernels.add(a, b, result);
+            return result;
+        }
         for (int i = 0; i < a.length; i++) {
             result[i] = a[i] + b[i];
         }
         return result;
     }
+
+    /**
+     * Adds a scaled vector to another vector in place (y = y + alpha * x).
+     * Used for gradient accumulation and weight updates during training.
+     *
+     * @param alpha Scale factor applied to x.
+     * @param x     Vector to add.
+     * @param y     Vector that is updated in place.
+     * @throws IllegalArgumentException if vectors have different lengths.
+     */
+    public static void axpy(double alpha, double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Vectors must have the same length.");
+        }
+        if (SimdSupport.isEnabled()) {
+            VectorKernels.axpy(alpha, x, y);
+            return;
+        }
+        for (int i = 0; i < x.length; i++) {
+            y[i] += alpha * x[i];
+        }
+    }
     
     /**
      * Applies the Softmax function to a vector.
@@ -249,20 +563,62 @@ public interface MathFunctions {
      * @return Softmax probabilities
      */
     public static double[] softmax(double[] outputs) {
-        double max = Arrays.stream(outputs).max().orElse(0.0);
-        double sum = 0.0;
         double[] exp = new double[outputs.length];
+        if (outputs.length > 0) {
+            softmax(outputs, exp);
+        }
+        return exp;
+    }
+
+    /**
+     * Applies the Softmax function, writing the probabilities into a caller-provided array.
+     *
+     * @param outputs Raw outputs from the last layer
+     * @param result  Array receiving the probabilities (may be the same array as outputs)
+     */
+    public static void softmax(double[] outputs, double[] result) {
+        if (SimdSupport.isEnabled()) {
+            VectorKernels.softmax(outputs, result);
+            return;
+        }
+        double max = outputs[0];
+        for (int i = 1; i < outputs.length; i++) {
+            if (outputs[i] > max) max = outputs[i];
+        }
 
+        double sum = 0.0;
         for (int i = 0; i < outputs.length; i++) {
-            exp[i] = Math.exp(outputs[i] - max);
-            sum += exp[i];
+            result[i] = Math.exp(outputs[i] - max);
+            sum += result[i];
         }
 
         for (int i = 0; i < outputs.length; i++) {
-            exp[i] /= sum;
+            result[i] /= sum;
         }
+    }
 
-        return exp;
+    /**
+     * Float32 variant of {@link #softmax(double[], double[])}.
+     * The output layers are tiny, so this always uses the scalar loop.
+     *
+     * @param outputs Raw outputs from the last layer
+     * @param result  Array receiving the probabilities (may be the same array as outputs)
+     */
+    public static void softmax(float[] outputs, float[] result) {
+        float max = outputs[0];
+        for (int i = 1; i < outputs.length; i++) {
+            if (outputs[i] > max) max = outputs[i];
+        }
+
+        float sum = 0f;
+        for (int i = 0; i < outputs.length; i++) {
+            result[i] = (float) Math.exp(outputs[i] - max);
+            sum += result[i];
+        }
+
+        for (int i = 0; i < outputs.length; i++) {
+            result[i] /= sum;
+        }
     }
 
     /**
@@ -0,0 +1,217 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * All category models in one memory-mapped file, so loading any number of
+ * categories costs a single file open.
+ *
+ * <pre>
+ * int32   magic "MMBD"
+ * int32   format version
+ * int32   number of entries
+ * entries table of contents, per category:
+ *         int32 name length, UTF-8 name, int32 inputs, hidden, outputs, int64 offset
+ * models  one {@link ModelFile} record per category at its offset, 8-byte aligned
+ * </pre>
+ *
+ * All values are little-endian. Every model keeps its own header and checksum.
+ */
+public final class ModelBundle {
+
+    /** File name of a bundle, next to the category directories it was built from. */
+    public static final String FILE_NAME = "models.bundle";
+
+    /** Default location of the bundle. */
+    public static final String DEFAULT_PATH = "model/Data/" + FILE_NAME;
+
+    /** Current format version. */
+    public static final int VERSION = 1;
+
+    static final int MAGIC = 0x44424D4D; // "MMBD" read as little-endian int
+
+    private final ByteBuffer mapped;
+    private final Map<String, int[]> entries;
+    private final Map<String, Long> offsets;
+
+    private ModelBundle(ByteBuffer mapped, Map<String, int[]> entries, Map<String, Long> offsets) {
+        this.mapped = mapped;
+        this.entries = entries;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Maps a bundle and reads its table of contents. The models themselves are
+     * only read when {@link #load(String)} is called.
+     *
+     * @param path bundle file
+     * @return the bundle, or null if the file does not exist or is not a valid bundle
+     */
+    public static ModelBundle open(String path) {
+        Path file = Paths.get(path);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.remaining() < 12 || mapped.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a model bundle.");
+            }
+            int version = mapped.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported bundle format version " + version + ".");
+            }
+            int count = mapped.getInt();
+            Map<String, int[]> entries = new LinkedHashMap<>();
+            Map<String, Long> offsets = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[mapped.getInt()];
+                mapped.get(name);
+                String category = new String(name, StandardCharsets.UTF_8);
+                entries.put(category, new int[] {mapped.getInt(), mapped.getInt(), mapped.getInt()});
+                long offset = mapped.getLong();
+                if (offset < 0 || offset >= mapped.capacity()) {
+                    throw new IllegalArgumentException("Entry " + category + " points outside the bundle.");
+                }
+                offsets.put(category, offset);
+            }
+            return new ModelBundle(mapped, entries, offsets);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error reading from " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the categories in the bundle, in stored order.
+     */
+    public String[] getCategories() {
+        return entries.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Returns whether the bundle holds a model of the given category and shape.
+     */
+    public boolean contains(String category, int inputs, int hidden, int outputs) {
+        int[] shape = entries.get(category);
+        return shape != null && shape[0] == inputs && shape[1] == hidden && shape[2] == outputs;
+    }
+
+    /**
+     * Returns a read-only view of the model record of a category, without copying.
+     *
+     * @param category category name
+     * @return the record, positioned at its {@link ModelFile} header
+     */
+    public ByteBuffer view(String category) {
+        Long offset = offsets.get(category);
+        if (offset == null) {
+            throw new IllegalArgumentException("No model for category " + category + " in the bundle.");
+        }
+        int[] shape = entries.get(category);
+        ByteBuffer view = mapped.asReadOnlyBuffer();
+        view.position((int) (long) offset);
+        view.limit((int) (long) offset + ModelFile.byteSize(shape[0], shape[1], shape[2]));
+        return view.slice();
+    }
+
+    /**
+     * Creates the network of a category from its record in the bundle.
+     *
+     * @param category category name
+     * @return the network, or null if the record is missing or damaged
+     */
+    public NeuralNetz load(String category) {
+        int[] shape = entries.get(category);
+        if (shape == null) {
+            return null;
+        }
+        try {
+            double[][] tensors = ModelFile.read(view(category), shape[0], shape[1], shape[2]);
+            return new NeuralNetz(shape[0], shape[1], shape[2], tensors[0], tensors[1], tensors[2], tensors[3]);
+        } catch (RuntimeException e) {
+            System.out.println("Error reading " + category + " from the model bundle: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes networks into one bundle file, replacing an existing bundle atomically
+     * so that running games never see a half-written file.
+     *
+     * @param path       target file
+     * @param categories category name of every network
+     * @param models     networks, indexed like the categories
+     */
+    public static void write(String path, String[] categories, NeuralNetz[] models) {
+        if (categories.length != models.length) {
+            throw new IllegalArgumentException("Every model needs exactly one category name.");
+        }
+        byte[][] names = new byte[categories.length][];
+        int tocBytes = 12;
+        for (int i = 0; i < categories.length; i++) {
+            names[i] = categories[i].getBytes(StandardCharsets.UTF_8);
+            tocBytes += 4 + names[i].length + 3 * 4 + 8;
+        }
+        long[] offsets = new long[models.length];
+        long size = align(tocBytes);
+        for (int i = 0; i < models.length; i++) {
+            offsets[i] = size;
+            size = align(size + ModelFile.byteSize(models[i].getInputSize(), models[i].getHiddenSize(), models[i].getOutputSize()));
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bundle would exceed 2 GB.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(models.length);
+        for (int i = 0; i < models.length; i++) {
+            buffer.putInt(names[i].length).put(names[i]);
+            buffer.putInt(models[i].getInputSize()).putInt(models[i].getHiddenSize()).putInt(models[i].getOutputSize());
+            buffer.putLong(offsets[i]);
+        }
+        for (int i = 0; i < models.length; i++) {
+            NeuralNetz model = models[i];
+            buffer.position((int) offsets[i]);
+            ModelFile.write(buffer, MathFunctions.toRowMajor(model.getWeightsInputHidden()), model.getBiasHidden(),
+                    MathFunctions.toRowMajor(model.getWeightsHiddenOutput()), model.getBiasOutput(),
+                    model.getInputSize(), model.getHiddenSize(), model.getOutputSize());
+        }
+        buffer.clear();
+        ModelFile.writeAtomically(path, buffer);
+    }
+
+    /**
+     * Deletes the bundle built from the category directories next to the given one.
+     * Called before new weights are written into a category directory, so the bundle
+     * never serves an older model; the games load that category from its own files
+     * until {@link ModelConverterMain} is run again.
+     *
+     * @param categoryDirectory directory of the category whose weights change
+     */
+    public static void invalidate(String categoryDirectory) {
+        Path bundle = Paths.get(categoryDirectory).toAbsolutePath().resolveSibling(FILE_NAME);
+        try {
+            if (Files.deleteIfExists(bundle)) {
+                System.out.println("Removed " + bundle + ", run ModelConverterMain to rebuild it.");
+            }
+        } catch (IOException e) {
+            System.out.println("Error deleting " + bundle + ": " + e.getMessage());
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,29 @@
+package model;
+
+/**
+ * Converts the text model files of every category into the binary {@link ModelFile} format
+ * and packs all categories into one {@link ModelBundle}.
+ * Training deletes the bundle next to the category it writes,
+ * so run it again after training to get the single-file loading back.
+ */
+public class ModelConverterMain {
+
+    public static void main(String[] args) {
+        String[] categories = {"apple", "candle", "eyeglasses", "fork", "star"};
+
+        for (String category : categories) {
+            ModelFile.convertTextModel(category, 196, 5, 2);
+            boolean valid = ModelFile.load(ModelFile.path(category), 196, 5, 2) != null;
+            System.out.printf("%-10s %s%n", category, valid ? "written to " + ModelFile.path(category) : "conversion failed");
+        }
+
+        NeuralNetz[] models = new NeuralNetz[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            models[i] = new NeuralNetz(196, 5, 2, categories[i]);
+        }
+        ModelBundle.write(ModelBundle.DEFAULT_PATH, categories, models);
+        ModelBundle bundle = ModelBundle.open(ModelBundle.DEFAULT_PATH);
+        System.out.println(bundle != null ? "Bundle with " + bundle.getCategories().length + " categories written to "
+                + ModelBundle.DEFAULT_PATH : "Bundle could not be written");
+    }
+}
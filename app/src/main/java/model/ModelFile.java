@@ -0,0 +1,267 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import model.Data.*;
+
+/**
+ * Binary file format for one category model, read through a memory mapping without parsing.
+ *
+ * <pre>
+ * int32   magic "MMDL"
+ * int32   format version
+ * int32   dtype (1 = float64)
+ * int32   tensor count (4)
+ * int32[] rows and columns of every tensor:
+ *         weightsInputHidden, biasHidden, weightsHiddenOutput, biasOutput
+ * int64   CRC32 of the payload
+ * payload all tensors in the order above, row-major
+ * </pre>
+ *
+ * All values are little-endian and the payload starts 8-byte aligned.
+ * A binary takes precedence over the text files next to it, so whatever writes new weights
+ * writes the binary with them: {@link CheckpointWriter} during training,
+ * or {@link ModelConverterMain} after the text files were replaced by hand.
+ */
+public final class ModelFile {
+
+    /** File name of the binary model inside a category directory. */
+    public static final String FILE_NAME = "model.bin";
+
+    /** Current format version. */
+    public static final int VERSION = 1;
+
+    /** Data type code for 64-bit floating point tensors. */
+    public static final int DTYPE_FLOAT64 = 1;
+
+    static final int MAGIC = 0x4C444D4D; // "MMDL" read as little-endian int
+    static final int TENSOR_COUNT = 4;
+    static final int HEADER_BYTES = 4 * 4 + TENSOR_COUNT * 2 * 4 + 8;
+
+    /** Text file of every tensor, in tensor order. */
+    static final String[] TEXT_FILES = {
+            "weightsInputHidden.txt", "biasHidden.txt", "weightsHiddenOutput.txt", "biasOutput.txt"
+    };
+
+    private ModelFile() {
+    }
+
+    /**
+     * Returns the path of the binary model of a category.
+     */
+    public static String path(String category) {
+        return directory(category) + FILE_NAME;
+    }
+
+    /**
+     * Returns the directory holding the model files of a category, ending with a slash.
+     */
+    static String directory(String category) {
+        return "model/Data/" + category + "/";
+    }
+
+    /**
+     * Loads the tensors of a binary model file.
+     *
+     * @param path    file to load
+     * @param inputs  expected number of input nodes
+     * @param hidden  expected number of hidden nodes
+     * @param outputs expected number of output nodes
+     * @return {weightsInputHidden, biasHidden, weightsHiddenOutput, biasOutput} with row-major weights,
+     *         or null if the file does not exist or is not a valid model of that shape
+     */
+    public static double[][] load(String path, int inputs, int hidden, int outputs) {
+        Path file = Paths.get(path);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer, inputs, hidden, outputs);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error reading from " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads one model starting at the buffer's position.
+     *
+     * @throws IllegalArgumentException if the header, shapes or checksum do not match
+     */
+    static double[][] read(ByteBuffer buffer, int inputs, int hidden, int outputs) {
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a model file.");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported model format version " + version + ".");
+        }
+        int dtype = in.getInt();
+        if (dtype != DTYPE_FLOAT64) {
+            throw new IllegalArgumentException("Unsupported data type " + dtype + ".");
+        }
+        if (in.getInt() != TENSOR_COUNT) {
+            throw new IllegalArgumentException("Unexpected number of tensors.");
+        }
+        int[][] expected = shapes(inputs, hidden, outputs);
+        int payloadValues = 0;
+        for (int[] shape : expected) {
+            if (in.getInt() != shape[0] || in.getInt() != shape[1]) {
+                throw new IllegalArgumentException("Model shape does not match " + inputs + "-" + hidden + "-" + outputs + ".");
+            }
+            payloadValues += shape[0] * shape[1];
+        }
+        long checksum = in.getLong();
+
+        if (in.remaining() < payloadValues * Double.BYTES) {
+            throw new IllegalArgumentException("Model file is truncated.");
+        }
+        ByteBuffer payload = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+        payload.limit(payloadValues * Double.BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != checksum) {
+            throw new IllegalArgumentException("Model checksum mismatch.");
+        }
+
+        DoubleBuffer values = payload.asDoubleBuffer();
+        double[][] tensors = new double[TENSOR_COUNT][];
+        for (int t = 0; t < TENSOR_COUNT; t++) {
+            tensors[t] = new double[expected[t][0] * expected[t][1]];
+            values.get(tensors[t]);
+        }
+        return tensors;
+    }
+
+    /**
+     * Returns the size in bytes of a model file of the given shape.
+     */
+    static int byteSize(int inputs, int hidden, int outputs) {
+        int values = 0;
+        for (int[] shape : shapes(inputs, hidden, outputs)) {
+            values += shape[0] * shape[1];
+        }
+        return HEADER_BYTES + values * Double.BYTES;
+    }
+
+    /**
+     * Writes one model into the buffer at its position.
+     */
+    static void write(ByteBuffer buffer, double[] weightsInputHidden, double[] biasHidden,
+                      double[] weightsHiddenOutput, double[] biasOutput, int inputs, int hidden, int outputs) {
+        ByteBuffer out = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        double[][] tensors = {weightsInputHidden, biasHidden, weightsHiddenOutput, biasOutput};
+        int[][] shapes = shapes(inputs, hidden, outputs);
+        for (int t = 0; t < TENSOR_COUNT; t++) {
+            if (tensors[t].length != shapes[t][0] * shapes[t][1]) {
+                throw new IllegalArgumentException("Tensor " + t + " does not match the model shape.");
+            }
+        }
+
+        out.position(HEADER_BYTES);
+        ByteBuffer payload = out.slice().order(ByteOrder.LITTLE_ENDIAN);
+        DoubleBuffer values = payload.asDoubleBuffer();
+        for (double[] tensor : tensors) {
+            values.put(tensor);
+        }
+        payload.limit(values.position() * Double.BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        out.position(0);
+        out.putInt(MAGIC).putInt(VERSION).putInt(DTYPE_FLOAT64).putInt(TENSOR_COUNT);
+        for (int[] shape : shapes) {
+            out.putInt(shape[0]).putInt(shape[1]);
+        }
+        out.putLong(crc.getValue());
+        buffer.position(buffer.position() + HEADER_BYTES + values.position() * Double.BYTES);
+    }
+
+    /**
+     * Saves a network to a binary model file.
+     *
+     * @param model network to save
+     * @param path  target file
+     */
+    public static void save(NeuralNetz model, String path) {
+        save(path, MathFunctions.toRowMajor(model.getWeightsInputHidden()), model.getBiasHidden(),
+                MathFunctions.toRowMajor(model.getWeightsHiddenOutput()), model.getBiasOutput(),
+                model.getInputSize(), model.getHiddenSize(), model.getOutputSize());
+    }
+
+    /**
+     * Saves tensors to a binary model file.
+     * The file is written next to the target and renamed over it once it is on disk,
+     * so a crash leaves either the previous or the new model, never a mix.
+     */
+    static void save(String path, double[] weightsInputHidden, double[] biasHidden,
+                     double[] weightsHiddenOutput, double[] biasOutput, int inputs, int hidden, int outputs) {
+        ByteBuffer buffer = ByteBuffer.allocate(byteSize(inputs, hidden, outputs));
+        write(buffer, weightsInputHidden, biasHidden, weightsHiddenOutput, biasOutput, inputs, hidden, outputs);
+        buffer.flip();
+        writeAtomically(path, buffer);
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer to a temporary file next to the target,
+     * forces it to disk and renames it over the target. Readers that mapped the old file
+     * keep their mapping, and a crash leaves either the old or the complete new file.
+     */
+    static void writeAtomically(String path, ByteBuffer buffer) {
+        Path target = Paths.get(path);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Data.moveAtomically(temp, target);
+        } catch (IOException e) {
+            System.out.println("Error writing to " + path + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // The next save overwrites the temporary file anyway
+            }
+        }
+    }
+
+    /**
+     * Converts the four text files of a category into {@value #FILE_NAME} in the same directory.
+     *
+     * @param category category name
+     * @param inputs   number of input nodes
+     * @param hidden   number of hidden nodes
+     * @param outputs  number of output nodes
+     */
+    public static void convertTextModel(String category, int inputs, int hidden, int outputs) {
+        String directory = directory(category);
+        save(path(category),
+                MathFunctions.toRowMajor(Data.loadMatrixFromFile(directory + "weightsInputHidden.txt", hidden, inputs)),
+                Data.loadVectorFromFile(directory + "biasHidden.txt", hidden),
+                MathFunctions.toRowMajor(Data.loadMatrixFromFile(directory + "weightsHiddenOutput.txt", outputs, hidden)),
+                Data.loadVectorFromFile(directory + "biasOutput.txt", outputs),
+                inputs, hidden, outputs);
+    }
+
+    /**
+     * Rows and columns of the four tensors of a model.
+     */
+    private static int[][] shapes(int inputs, int hidden, int outputs) {
+        return new int[][] {{hidden, inputs}, {hidden, 1}, {outputs, hidden}, {outputs, 1}};
+    }
+}
@@ -1,34 +1,250 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import model.Data.Data;
 
 /**
  * Manages multiple neural network models for different categories
  * and allows simultaneous classification of an input image.
+ * Classification only reads the loaded weights, so one instance can be
+ * used from several threads at once.
+ * The category models are loaded concurrently, either right away, in the background
+ * ({@link #loadInBackground}) or on first use ({@link #loadLazily}).
+ * A thread that needs the models before they are loaded runs the remaining loading steps
+ * itself instead of waiting for a free pool thread, so classifying on a thread of the
+ * loader pool cannot deadlock it.
  */
 public class MultiModelClassifier {
 
-    private Map<String, NeuralNetz> models;
     private String[] categories = {"apple", "candle", "eyeglasses", "fork", "star"};
+    private Precision precision;
+    private volatile CategoryScorer scorer;
+    private final CompletableFuture<MultiModelClassifier> ready = new CompletableFuture<>();
+    private final Executor loader;
+    private boolean loadingStarted;
+    private final LoadTask<ModelBundle> bundleTask;
+    private final List<LoadTask<Object>> categoryTasks = new ArrayList<>();
+    private final ThreadLocal<double[]> probabilityBuffer;
 
     /**
-     * Constructor: Loads all 5 models
+     * One loading step. It runs once, on the loader pool or on a thread that
+     * needs its result before the pool got to it.
+     */
+    private static final class LoadTask<T> implements Runnable {
+        private final Supplier<T> work;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        LoadTask(Supplier<T> work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) return;
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Constructor: Loads all 5 models in double precision
      */
     public MultiModelClassifier() {
-        models = new HashMap<>();
-        loadAllModels();
+        this(Precision.DOUBLE);
     }
 
     /**
-     * Loads all category-specific models
+     * Constructor: Loads all 5 models in the given precision
+     * and stacks them into a fused classifier. Returns once all models are loaded.
+     *
+     * @param precision numeric precision used for inference
      */
-    private void loadAllModels() {
+    public MultiModelClassifier(Precision precision) {
+        this(precision, ForkJoinPool.commonPool());
+        startLoading();
+        ready.join();
+    }
+
+    private MultiModelClassifier(Precision precision, Executor loader) {
+        this.precision = precision;
+        this.loader = loader;
+        probabilityBuffer = ThreadLocal.withInitial(() -> new double[categories.length]);
+        // The int8 engine reads its own files, so only the other precisions use the bundle
+        bundleTask = new LoadTask<>(() -> precision == Precision.INT8 ? null : ModelBundle.open(ModelBundle.DEFAULT_PATH));
         for (String category : categories) {
-            models.put(category, loadModel(category));
+            categoryTasks.add(new LoadTask<>(() -> loadCategory(bundleTask.result.join(), category)));
+        }
+    }
+
+    /**
+     * Starts loading all models on the given pool and returns immediately.
+     * Classification calls made before loading finished wait for it;
+     * use {@link #getReadyFuture()} to be notified instead.
+     *
+     * @param precision numeric precision used for inference
+     * @param loader    pool the category models are loaded on concurrently
+     * @return the classifier, possibly still loading
+     */
+    public static MultiModelClassifier loadInBackground(Precision precision, Executor loader) {
+        MultiModelClassifier classifier = new MultiModelClassifier(precision, loader);
+        classifier.startLoading();
+        return classifier;
+    }
+
+    /**
+     * Creates a classifier that loads its models on the first classification
+     * (or when {@link #getReadyFuture()} is called), e.g. for tools that may never classify.
+     *
+     * @param precision numeric precision used for inference
+     * @param loader    pool the category models are loaded on concurrently
+     * @return the classifier, with nothing loaded yet
+     */
+    public static MultiModelClassifier loadLazily(Precision precision, Executor loader) {
+        return new MultiModelClassifier(precision, loader);
+    }
+
+    /**
+     * Returns a future that completes with this classifier once all models are loaded,
+     * or exceptionally if loading failed. Starts loading if it was deferred.
+     */
+    public CompletableFuture<MultiModelClassifier> getReadyFuture() {
+        startLoading();
+        return ready;
+    }
+
+    /**
+     * Returns whether all models are loaded.
+     */
+    public boolean isReady() {
+        return scorer != null;
+    }
+
+    /**
+     * Returns the fused engine, loading the models if necessary.
+     * Steps the pool has not started yet run on the calling thread, so this only
+     * ever waits for steps that are already running.
+     */
+    private CategoryScorer scorer() {
+        CategoryScorer loaded = scorer;
+        if (loaded != null) {
+            return loaded;
+        }
+        startLoading();
+        bundleTask.run();
+        for (LoadTask<Object> task : categoryTasks) {
+            task.run();
+        }
+        ready.join();
+        return scorer;
+    }
+
+    /**
+     * Starts loading once; later calls do nothing.
+     * The bundle is opened first, then every category is loaded as its own task.
+     */
+    private synchronized void startLoading() {
+        if (loadingStarted) return;
+        loadingStarted = true;
+        List<CompletableFuture<Object>> loads = new ArrayList<>();
+        for (LoadTask<Object> task : categoryTasks) {
+            loads.add(task.result);
+        }
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    Object[] models = new Object[loads.size()];
+                    for (int i = 0; i < models.length; i++) {
+                        models[i] = loads.get(i).join();
+                    }
+                    return fuse(models);
+                })
+                .whenComplete((loaded, error) -> {
+                    if (error != null) {
+                        ready.completeExceptionally(error);
+                    } else {
+                        scorer = loaded;
+                        ready.complete(this);
+                    }
+                });
+        bundleTask.result.whenComplete((bundle, error) -> categoryTasks.forEach(loader::execute));
+        loader.execute(bundleTask);
+    }
+
+    /**
+     * Loads the model of one category: quantized layers for int8, otherwise the
+     * network from the bundle, or from its own files if the bundle does not hold it.
+     */
+    private Object loadCategory(ModelBundle bundle, String category) {
+        if (precision == Precision.INT8) {
+            return QuantizedClassifier.loadLayers(category, 196, 5, 2);
         }
+        NeuralNetz model = loadFromBundle(bundle, category);
+        return model != null ? model : loadModel(category);
+    }
+
+    /**
+     * Combines the loaded category models into the engine for the requested precision.
+     */
+    private CategoryScorer fuse(Object[] loaded) {
+        if (precision == Precision.INT8) {
+            QuantizedMatrix[] inputHidden = new QuantizedMatrix[loaded.length];
+            QuantizedMatrix[] hiddenOutput = new QuantizedMatrix[loaded.length];
+            for (int i = 0; i < loaded.length; i++) {
+                QuantizedMatrix[] layers = (QuantizedMatrix[]) loaded[i];
+                inputHidden[i] = layers[0];
+                hiddenOutput[i] = layers[1];
+            }
+            return new QuantizedClassifier(inputHidden, hiddenOutput);
+        }
+        NeuralNetz[] models = new NeuralNetz[loaded.length];
+        for (int i = 0; i < loaded.length; i++) {
+            models[i] = (NeuralNetz) loaded[i];
+        }
+        if (precision == Precision.FLOAT) {
+            NeuralNetzFloat[] floatModels = new NeuralNetzFloat[models.length];
+            for (int i = 0; i < models.length; i++) {
+                floatModels[i] = new NeuralNetzFloat(models[i]);
+            }
+            return new FloatFusedClassifier(floatModels);
+        }
+        return new FusedClassifier(models);
+    }
+
+    /**
+     * Returns the model of a category from the bundle, or null if it has to be loaded from its own files.
+     */
+    private NeuralNetz loadFromBundle(ModelBundle bundle, String category) {
+        if (bundle == null || !bundle.contains(category, 196, 5, 2)) {
+            return null;
+        }
+        return bundle.load(category);
+    }
+
+    /**
+     * Returns the precision the models were loaded in.
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the category names, in the order used by all probability arrays.
+     */
+    public String[] getCategories() {
+        return categories.clone();
     }
 
     /**
@@ -51,11 +267,13 @@ public class MultiModelClassifier {
      */
     public Map<String, double[]> classifyWithAllModels(double[] input) {
         Map<String, double[]> results = new HashMap<>();
+        CategoryScorer scorer = scorer();
+        int outputSize = scorer.getOutputSize();
+        double[] outputs = new double[categories.length * outputSize];
+        scorer.scoreAll(input, outputs);
 
-        for (String category : categories) {
-            NeuralNetz model = models.get(category);
-            double[] output = model.forward(input);
-            results.put(category, output);
+        for (int i = 0; i < categories.length; i++) {
+            results.put(categories[i], Arrays.copyOfRange(outputs, i * outputSize, (i + 1) * outputSize));
         }
 
         return results;
@@ -68,16 +286,18 @@ public class MultiModelClassifier {
      * @return category with the highest positive probability
      */
     public String getBestMatch(double[] input) {
-        Map<String, double[]> allResults = classifyWithAllModels(input);
         String bestCategory = "";
         double bestProbability = 0.0;
 
-        for (Map.Entry<String, double[]> entry : allResults.entrySet()) {
+        double[] probabilities = probabilityBuffer.get();
+        scorer().score(input, probabilities);
+
+        for (int i = 0; i < categories.length; i++) {
             // Index 0 is the "yes" probability (see loadTrainingSamples logic)
-            double probability = entry.getValue()[0];
+            double probability = probabilities[i];
             if (probability > bestProbability) {
                 bestProbability = probability;
-                bestCategory = entry.getKey();
+                bestCategory = categories[i];
             }
         }
 
@@ -92,14 +312,63 @@ public class MultiModelClassifier {
      * @return array of probabilities corresponding to each category
      */
     public double[] getAllCategoryProbabilities(double[] input) {
-        Map<String, double[]> allResults = classifyWithAllModels(input);
         double[] probabilities = new double[categories.length];
+        getAllCategoryProbabilities(input, probabilities);
+        return probabilities;
+    }
 
-        for (int i = 0; i < categories.length; i++) {
-            // Index 0 is the "yes" probability
-            probabilities[i] = allResults.get(categories[i])[0];
+    /**
+     * Writes the positive probabilities for all categories into the given array.
+     * All models are scored in one pass over the input and nothing is allocated.
+     *
+     * @param input         input image as a flat array (length 196)
+     * @param probabilities array with one slot per category
+     */
+    public void getAllCategoryProbabilities(double[] input, double[] probabilities) {
+        scorer().score(input, probabilities);
+    }
+
+    /**
+     * Same as {@link #getAllCategoryProbabilities(double[], double[])} but keeps
+     * intermediate values in a caller-owned context from {@link #newContext()}.
+     * Engines for other precisions keep their buffers per thread and ignore the context.
+     *
+     * @param input         input image as a flat array (length 196)
+     * @param probabilities array with one slot per category
+     * @param context       per-thread inference buffers
+     */
+    public void getAllCategoryProbabilities(double[] input, double[] probabilities, InferenceContext context) {
+        CategoryScorer scorer = scorer();
+        if (scorer instanceof FusedClassifier) {
+            ((FusedClassifier) scorer).score(input, probabilities, context);
+        } else {
+            scorer.score(input, probabilities);
         }
+    }
 
+    /**
+     * Returns the positive probabilities of all categories for many inputs at once.
+     * Intended for offline scoring; see {@link CategoryScorer#scoreBatch}.
+     *
+     * @param inputs input images as flat arrays (length 196 each)
+     * @return one array of category probabilities per input
+     */
+    public double[][] getAllCategoryProbabilitiesBatch(double[][] inputs) {
+        double[][] probabilities = new double[inputs.length][categories.length];
+        scorer().scoreBatch(inputs, probabilities);
         return probabilities;
     }
+
+    /**
+     * Creates a new set of inference buffers for use with this classifier.
+     * Only the double engine uses caller-owned buffers; for other precisions
+     * the returned context is an empty placeholder.
+     */
+    public InferenceContext newContext() {
+        CategoryScorer scorer = scorer();
+        if (scorer instanceof FusedClassifier) {
+            return ((FusedClassifier) scorer).newContext();
+        }
+        return new InferenceContext(0, 0);
+    }
 }
@@ -10,18 +10,25 @@ public class NeuralNetz {
 
     private double[][] weightsInputHidden;
     private double[] biasHidden;
-    private double[] hiddenOutput;
-    private double[] hiddenInput;
 
     private double[][] weightsHiddenOutput;
     private double[] biasOutput;
 
+    // Row-major copies of the weight matrices used by the inference path
+    private double[] flatWeightsInputHidden;
+    private double[] flatWeightsHiddenOutput;
+
     private int inputSize;
     private int hiddenSize;
     private int outputSize;
 
+    // Scratch buffers for callers that do not pass their own context
+    private final ThreadLocal<InferenceContext> threadContext;
+
     /**
      * Constructor that initializes the network by loading weights and biases from files.
+     * The binary {@link ModelFile} of the category is used if present; otherwise the
+     * weights are read from the text files.
      *
      * @param inputs     number of input nodes
      * @param hidden     number of hidden nodes
@@ -32,11 +39,56 @@ public class NeuralNetz {
         this.inputSize = inputs;
         this.hiddenSize = hidden;
         this.outputSize = outputs;
+        this.threadContext = ThreadLocal.withInitial(this::newContext);
+
+        double[][] tensors = ModelFile.load(ModelFile.path(category), inputs, hidden, outputs);
+        if (tensors != null) {
+            setTensors(tensors[0], tensors[1], tensors[2], tensors[3]);
+            return;
+        }
         this.biasHidden = Data.loadVectorFromFile("model/Data/" + category + "/biasHidden.txt", hidden);
         this.weightsInputHidden = Data.loadMatrixFromFile("model/Data/" + category + "/weightsInputHidden.txt", hidden, inputs);
-        this.hiddenOutput = new double[hidden];
         this.weightsHiddenOutput = Data.loadMatrixFromFile("model/Data/" + category + "/weightsHiddenOutput.txt", outputs, hidden);
         this.biasOutput = Data.loadVectorFromFile("model/Data/" + category + "/biasOutput.txt", outputs);
+        this.flatWeightsInputHidden = MathFunctions.toRowMajor(weightsInputHidden);
+        this.flatWeightsHiddenOutput = MathFunctions.toRowMajor(weightsHiddenOutput);
+    }
+
+    /**
+     * Constructor that wraps weights and biases that are already in memory,
+     * e.g. read from a binary model file. The arrays are used without copying.
+     *
+     * @param inputs              number of input nodes
+     * @param hidden              number of hidden nodes
+     * @param outputs             number of output nodes
+     * @param weightsInputHidden  row-major hidden x inputs weights
+     * @param biasHidden          hidden layer biases
+     * @param weightsHiddenOutput row-major outputs x hidden weights
+     * @param biasOutput          output layer biases
+     */
+    public NeuralNetz(int inputs, int hidden, int outputs, double[] weightsInputHidden, double[] biasHidden,
+                      double[] weightsHiddenOutput, double[] biasOutput) {
+        if (weightsInputHidden.length != hidden * inputs || biasHidden.length != hidden
+                || weightsHiddenOutput.length != outputs * hidden || biasOutput.length != outputs) {
+            throw new IllegalArgumentException("Weights do not match the network layer sizes.");
+        }
+        this.inputSize = inputs;
+        this.hiddenSize = hidden;
+        this.outputSize = outputs;
+        this.threadContext = ThreadLocal.withInitial(this::newContext);
+        setTensors(weightsInputHidden, biasHidden, weightsHiddenOutput, biasOutput);
+    }
+
+    /**
+     * Takes over flat weights and derives the 2D matrices used by training.
+     */
+    private void setTensors(double[] flatInputHidden, double[] biasHidden, double[] flatHiddenOutput, double[] biasOutput) {
+        this.flatWeightsInputHidden = flatInputHidden;
+        this.flatWeightsHiddenOutput = flatHiddenOutput;
+        this.weightsInputHidden = MathFunctions.fromRowMajor(flatInputHidden, hiddenSize, inputSize);
+        this.weightsHiddenOutput = MathFunctions.fromRowMajor(flatHiddenOutput, outputSize, hiddenSize);
+        this.biasHidden = biasHidden;
+        this.biasOutput = biasOutput;
     }
 
     /**
@@ -44,10 +96,13 @@ public class NeuralNetz {
      */
     public void setWeightsInputHidden(double[][] updateWeightsInputHidden) {
         this.weightsInputHidden = updateWeightsInputHidden;
+        this.flatWeightsInputHidden = MathFunctions.toRowMajor(updateWeightsInputHidden);
     }
 
     /**
      * Returns the weights between input and hidden layer.
+     * After changing the matrix in place, pass it to the setter again
+     * so the copy used for inference is refreshed.
      */
     public double[][] getWeightsInputHidden() {
         return this.weightsInputHidden;
@@ -68,10 +123,11 @@ public class NeuralNetz {
     }
 
     /**
-     * Returns the output values from the hidden layer.
+     * Returns the output values from the hidden layer
+     * of the last forward pass on the calling thread.
      */
     public double[] getHiddenOutput() {
-        return this.hiddenOutput;
+        return threadContext.get().hiddenOutput;
     }
 
     /**
@@ -79,20 +135,24 @@ public class NeuralNetz {
      */
     public void setWeightsHiddenOutput(double[][] updateWeightsHiddenOutput) {
         this.weightsHiddenOutput = updateWeightsHiddenOutput;
+        this.flatWeightsHiddenOutput = MathFunctions.toRowMajor(updateWeightsHiddenOutput);
     }
 
     /**
      * Returns the weights between hidden and output layer.
+     * After changing the matrix in place, pass it to the setter again
+     * so the copy used for inference is refreshed.
      */
     public double[][] getWeightsHiddenOutput() {
         return this.weightsHiddenOutput;
     }
 
     /**
-     * Returns the raw input values to the hidden layer (before activation).
+     * Returns the raw input values to the hidden layer (before activation)
+     * of the last forward pass on the calling thread.
      */
     public double[] getHiddenInput() {
-        return this.hiddenInput;
+        return threadContext.get().hiddenInput;
     }
 
     /**
@@ -141,9 +201,88 @@ public class NeuralNetz {
      * Performs forward propagation on the input and returns the output after applying softmax.
      */
     public double[] forward(double[] inputs) {
-        hiddenInput = MathFunctions.add(MathFunctions.multiply(weightsInputHidden, inputs), biasHidden);
-        hiddenOutput = MathFunctions.applyReLU(hiddenInput);
-        double[] finalInput = MathFunctions.add(MathFunctions.multiply(weightsHiddenOutput, hiddenOutput), biasOutput);
-        return MathFunctions.softmax(finalInput);
+        double[] outputs = new double[outputSize];
+        forward(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Performs forward propagation and writes the softmax output into the given array.
+     * Intermediate values go into a buffer owned by the calling thread,
+     * so this method does not allocate and may be called from several threads.
+     *
+     * @param inputs  input vector of length inputSize
+     * @param outputs array of length outputSize that receives the probabilities
+     */
+    public void forward(double[] inputs, double[] outputs) {
+        forward(inputs, outputs, threadContext.get());
+    }
+
+    /**
+     * Performs forward propagation using a caller-owned context for intermediate values.
+     * Only the weights are read from this instance, so one network can serve
+     * many threads as long as each thread passes its own context.
+     *
+     * @param inputs  input vector of length inputSize
+     * @param outputs array of length outputSize that receives the probabilities
+     * @param context buffers created by {@link #newContext()}
+     */
+    public void forward(double[] inputs, double[] outputs, InferenceContext context) {
+        context.requireSize(hiddenSize, outputSize);
+        MathFunctions.multiplyAdd(flatWeightsInputHidden, hiddenSize, inputSize, inputs, biasHidden, context.hiddenInput);
+        MathFunctions.applyReLU(context.hiddenInput, context.hiddenOutput);
+        MathFunctions.multiplyAdd(flatWeightsHiddenOutput, outputSize, hiddenSize, context.hiddenOutput, biasOutput, context.finalInput);
+        MathFunctions.softmax(context.finalInput, outputs);
+    }
+
+    /**
+     * Performs forward propagation on many inputs at once.
+     * The first layer is computed with a cache-blocked matrix-matrix kernel,
+     * so every weight row is reused across the whole batch.
+     *
+     * @param inputs input vectors, each of length inputSize
+     * @return one softmax output vector per input
+     */
+    public double[][] forwardBatch(double[][] inputs) {
+        int count = inputs.length;
+        double[][] hidden = new double[count][hiddenSize];
+        double[][] outputs = new double[count][outputSize];
+        double[] finalInput = new double[outputSize];
+
+        MathFunctions.multiplyAddBatch(flatWeightsInputHidden, hiddenSize, inputSize, inputs, count, biasHidden, hidden);
+        for (int s = 0; s < count; s++) {
+            MathFunctions.applyReLU(hidden[s], hidden[s]);
+            MathFunctions.multiplyAdd(flatWeightsHiddenOutput, outputSize, hiddenSize, hidden[s], biasOutput, finalInput);
+            MathFunctions.softmax(finalInput, outputs[s]);
+        }
+        return outputs;
+    }
+
+    /**
+     * Creates a new set of intermediate buffers sized for this network.
+     */
+    public InferenceContext newContext() {
+        return new InferenceContext(hiddenSize, outputSize);
+    }
+
+    /**
+     * Returns the number of input nodes.
+     */
+    public int getInputSize() {
+        return this.inputSize;
+    }
+
+    /**
+     * Returns the number of hidden nodes.
+     */
+    public int getHiddenSize() {
+        return this.hiddenSize;
+    }
+
+    /**
+     * Returns the number of output nodes.
+     */
+    public int getOutputSize() {
+        return this.outputSize;
     }
 }
@@ -0,0 +1,137 @@
+package model;
+
+/**
+ * Float32 variant of {@link NeuralNetz} for inference only.
+ * Weights are kept in flat row-major float arrays, which halves the
+ * model footprint and doubles the number of SIMD lanes per vector.
+ */
+public class NeuralNetzFloat {
+
+    private final float[] weightsInputHidden;
+    private final float[] biasHidden;
+
+    private final float[] weightsHiddenOutput;
+    private final float[] biasOutput;
+
+    private final int inputSize;
+    private final int hiddenSize;
+    private final int outputSize;
+
+    // Scratch buffers for callers that do not pass their own context
+    private final ThreadLocal<FloatInferenceContext> threadContext;
+
+    /**
+     * Constructor that narrows a double precision network to float32.
+     *
+     * @param model network whose weights are copied
+     */
+    public NeuralNetzFloat(NeuralNetz model) {
+        this.inputSize = model.getInputSize();
+        this.hiddenSize = model.getHiddenSize();
+        this.outputSize = model.getOutputSize();
+        this.weightsInputHidden = toFloat(MathFunctions.toRowMajor(model.getWeightsInputHidden()));
+        this.biasHidden = toFloat(model.getBiasHidden());
+        this.weightsHiddenOutput = toFloat(MathFunctions.toRowMajor(model.getWeightsHiddenOutput()));
+        this.biasOutput = toFloat(model.getBiasOutput());
+        this.threadContext = ThreadLocal.withInitial(this::newContext);
+    }
+
+    /**
+     * Narrows a loaded tensor to float32.
+     */
+    private static float[] toFloat(double[] values) {
+        float[] result = new float[values.length];
+        MathFunctions.toFloat(values, result);
+        return result;
+    }
+
+    /**
+     * Returns the number of input nodes.
+     */
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    /**
+     * Returns the number of hidden nodes.
+     */
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    /**
+     * Returns the number of output nodes.
+     */
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * Returns the weights between input and hidden layer as a row-major array.
+     */
+    public float[] getWeightsInputHidden() {
+        return weightsInputHidden;
+    }
+
+    /**
+     * Returns the biases for the hidden layer.
+     */
+    public float[] getBiasHidden() {
+        return biasHidden;
+    }
+
+    /**
+     * Returns the weights between hidden and output layer as a row-major array.
+     */
+    public float[] getWeightsHiddenOutput() {
+        return weightsHiddenOutput;
+    }
+
+    /**
+     * Returns the biases for the output layer.
+     */
+    public float[] getBiasOutput() {
+        return biasOutput;
+    }
+
+    /**
+     * Performs forward propagation on the input and returns the output after applying softmax.
+     */
+    public float[] forward(float[] inputs) {
+        float[] outputs = new float[outputSize];
+        forward(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Performs forward propagation using a buffer owned by the calling thread.
+     *
+     * @param inputs  input vector of length inputSize
+     * @param outputs array of length outputSize that receives the probabilities
+     */
+    public void forward(float[] inputs, float[] outputs) {
+        forward(inputs, outputs, threadContext.get());
+    }
+
+    /**
+     * Performs forward propagation using a caller-owned context for intermediate values.
+     *
+     * @param inputs  input vector of length inputSize
+     * @param outputs array of length outputSize that receives the probabilities
+     * @param context buffers created by {@link #newContext()}
+     */
+    public void forward(float[] inputs, float[] outputs, FloatInferenceContext context) {
+        context.requireSize(inputSize, hiddenSize, outputSize);
+        MathFunctions.multiplyAdd(weightsInputHidden, hiddenSize, inputSize, inputs, biasHidden, context.hiddenInput);
+        MathFunctions.applyReLU(context.hiddenInput, context.hiddenOutput);
+        MathFunctions.multiplyAdd(weightsHiddenOutput, outputSize, hiddenSize, context.hiddenOutput, biasOutput, context.finalInput);
+        MathFunctions.softmax(context.finalInput, outputs);
+    }
+
+    /**
+     * Creates a new set of intermediate buffers sized for this network.
+     */
+    public FloatInferenceContext newContext() {
+        return new FloatInferenceContext(inputSize, hiddenSize, outputSize);
+    }
+}
@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * Numeric precision used for inference when loading the category models.
+ */
+public enum Precision {
+
+    /** 64-bit floating point, the precision the models were trained in. */
+    DOUBLE,
+
+    /** 32-bit floating point: half the memory traffic and twice the SIMD lanes. */
+    FLOAT,
+
+    /** 8-bit integer weights with one scale per row, see {@link QuantizedClassifier}. */
+    INT8
+}
@@ -0,0 +1,85 @@
+package model;
+
+import java.util.*;
+
+import model.Data.*;
+
+/**
+ * Compares the accuracy of the reduced-precision inference engines against
+ * the double models on the QuickDraw test vectors.
+ */
+public class PrecisionComparisonMain {
+
+    public static void main(String[] args) {
+        String pathTest = "model/Data/M/quickdraw_project/converted_vectors_test/";
+        int samplesPerCategory = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        MultiModelClassifier reference = new MultiModelClassifier(Precision.DOUBLE);
+        String[] categories = reference.getCategories();
+
+        // Collect the test vectors together with their true category index
+        List<double[]> inputs = new ArrayList<>();
+        List<Integer> labels = new ArrayList<>();
+        for (int c = 0; c < categories.length; c++) {
+            List<double[]> vectors = Data.loadVectorsFromJson(pathTest + categories[c] + "_vector_14.json");
+            for (int i = 0; i < Math.min(samplesPerCategory, vectors.size()); i++) {
+                inputs.add(vectors.get(i));
+                labels.add(c);
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.out.println("No test vectors found in " + pathTest);
+            return;
+        }
+
+        double[][] batch = inputs.toArray(new double[0][]);
+        double[][] expected = reference.getAllCategoryProbabilitiesBatch(batch);
+        double referenceAccuracy = accuracy(expected, labels);
+
+        System.out.printf("Test vectors: %d%n", batch.length);
+        System.out.printf("%-8s accuracy %.4f%n", Precision.DOUBLE, referenceAccuracy);
+
+        for (Precision precision : Precision.values()) {
+            if (precision == Precision.DOUBLE) continue;
+
+            MultiModelClassifier classifier = new MultiModelClassifier(precision);
+            double[][] actual = classifier.getAllCategoryProbabilitiesBatch(batch);
+
+            double maxDifference = 0.0;
+            int agreements = 0;
+            for (int s = 0; s < batch.length; s++) {
+                for (int c = 0; c < categories.length; c++) {
+                    maxDifference = Math.max(maxDifference, Math.abs(actual[s][c] - expected[s][c]));
+                }
+                if (argMax(actual[s]) == argMax(expected[s])) agreements++;
+            }
+
+            double precisionAccuracy = accuracy(actual, labels);
+            System.out.printf("%-8s accuracy %.4f | delta %+.4f | agreement %.4f | max probability difference %.2e%n",
+                    precision, precisionAccuracy, precisionAccuracy - referenceAccuracy,
+                    (double) agreements / batch.length, maxDifference);
+        }
+    }
+
+    /**
+     * Returns the share of inputs whose most likely category matches the label.
+     */
+    private static double accuracy(double[][] probabilities, List<Integer> labels) {
+        int correct = 0;
+        for (int s = 0; s < probabilities.length; s++) {
+            if (argMax(probabilities[s]) == labels.get(s)) correct++;
+        }
+        return (double) correct / probabilities.length;
+    }
+
+    /**
+     * Returns the index of the largest value.
+     */
+    private static int argMax(double[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) best = i;
+        }
+        return best;
+    }
+}
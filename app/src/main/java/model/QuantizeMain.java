@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * Post-training quantization tool: converts the saved weight matrices of every
+ * category model to int8 with per-row scales, writes them with their biases next to
+ * the text model files and reports the resulting accuracy delta on the test vectors.
+ */
+public class QuantizeMain {
+
+    public static void main(String[] args) {
+        String[] categories = {"apple", "candle", "eyeglasses", "fork", "star"};
+
+        for (String category : categories) {
+            String directory = "model/Data/" + category + "/";
+            NeuralNetz model = new NeuralNetz(196, 5, 2, category);
+
+            QuantizedMatrix inputHidden = QuantizedMatrix.quantize(model.getWeightsInputHidden(), model.getBiasHidden());
+            QuantizedMatrix hiddenOutput = QuantizedMatrix.quantize(model.getWeightsHiddenOutput(), model.getBiasOutput());
+            inputHidden.save(directory, QuantizedClassifier.INPUT_HIDDEN);
+            hiddenOutput.save(directory, QuantizedClassifier.HIDDEN_OUTPUT);
+
+            System.out.printf("%-10s max weight error %.2e%n", category,
+                    Math.max(maxError(model.getWeightsInputHidden(), inputHidden),
+                             maxError(model.getWeightsHiddenOutput(), hiddenOutput)));
+        }
+
+        // Accuracy of every precision, including the freshly written int8 weights
+        PrecisionComparisonMain.main(args);
+    }
+
+    /**
+     * Returns the largest absolute difference between the original and the dequantized weights.
+     */
+    private static double maxError(double[][] original, QuantizedMatrix quantized) {
+        double max = 0.0;
+        byte[][] values = quantized.getValues();
+        double[] scales = quantized.getScales();
+        for (int i = 0; i < original.length; i++) {
+            for (int j = 0; j < original[i].length; j++) {
+                max = Math.max(max, Math.abs(original[i][j] - values[i][j] * scales[i]));
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,263 @@
+package model;
+
+/**
+ * Int8 inference engine for the category models.
+ * The stacked first layer and the block-diagonal second layer hold int8
+ * weights with one scale per row. Input pixels lie in [0, 1] and are mapped
+ * to 0..127, so the first layer runs entirely in integer arithmetic and is
+ * rescaled once per hidden node. The tiny second layer multiplies its int8
+ * weights with the dequantized hidden activations.
+ */
+public class QuantizedClassifier implements CategoryScorer {
+
+    /** Base names of the quantized layers written by {@link QuantizeMain}. */
+    static final String INPUT_HIDDEN = "weightsInputHidden";
+    static final String HIDDEN_OUTPUT = "weightsHiddenOutput";
+
+    private final int categoryCount;
+    private final int inputSize;
+    private final int hiddenSize;
+    private final int outputSize;
+
+    // Stacked first layer: (categoryCount * hiddenSize) x inputSize, row-major
+    private final byte[] weightsInputHidden;
+    private final double[] scalesInputHidden;
+    private final double[] biasHidden;
+
+    // Block-diagonal second layer: one outputSize x hiddenSize block per category
+    private final byte[] weightsHiddenOutput;
+    private final double[] scalesHiddenOutput;
+    private final double[] biasOutput;
+
+    private final ThreadLocal<Workspace> threadWorkspace;
+
+    /**
+     * Per-thread buffers of one forward pass.
+     */
+    private static final class Workspace {
+        final int[] input;
+        final double[] hidden;
+        final double[] logits;
+
+        Workspace(int inputSize, int hiddenSize, int outputSize) {
+            input = new int[inputSize];
+            hidden = new double[hiddenSize];
+            logits = new double[outputSize];
+        }
+    }
+
+    /**
+     * Builds the engine from quantized layers with their biases, one entry per category.
+     *
+     * @param inputHidden  quantized input-to-hidden layers
+     * @param hiddenOutput quantized hidden-to-output layers
+     */
+    public QuantizedClassifier(QuantizedMatrix[] inputHidden, QuantizedMatrix[] hiddenOutput) {
+        if (inputHidden.length != hiddenOutput.length) {
+            throw new IllegalArgumentException("Every model needs both layers.");
+        }
+        if (inputHidden.length == 0) {
+            throw new IllegalArgumentException("At least one model is required.");
+        }
+        this.categoryCount = inputHidden.length;
+        this.hiddenSize = inputHidden[0].getRows();
+        this.inputSize = inputHidden[0].getCols();
+        this.outputSize = hiddenOutput[0].getRows();
+
+        int stackedRows = categoryCount * hiddenSize;
+        this.weightsInputHidden = new byte[stackedRows * inputSize];
+        this.scalesInputHidden = new double[stackedRows];
+        this.biasHidden = new double[stackedRows];
+        this.weightsHiddenOutput = new byte[categoryCount * outputSize * hiddenSize];
+        this.scalesHiddenOutput = new double[categoryCount * outputSize];
+        this.biasOutput = new double[categoryCount * outputSize];
+
+        for (int c = 0; c < categoryCount; c++) {
+            if (inputHidden[c].getRows() != hiddenSize || inputHidden[c].getCols() != inputSize
+                    || hiddenOutput[c].getRows() != outputSize || hiddenOutput[c].getCols() != hiddenSize) {
+                throw new IllegalArgumentException("All models must have the same layer sizes.");
+            }
+            byte[][] first = inputHidden[c].getValues();
+            for (int h = 0; h < hiddenSize; h++) {
+                System.arraycopy(first[h], 0, weightsInputHidden, (c * hiddenSize + h) * inputSize, inputSize);
+            }
+            System.arraycopy(inputHidden[c].getScales(), 0, scalesInputHidden, c * hiddenSize, hiddenSize);
+            System.arraycopy(inputHidden[c].getBias(), 0, this.biasHidden, c * hiddenSize, hiddenSize);
+
+            byte[][] second = hiddenOutput[c].getValues();
+            for (int o = 0; o < outputSize; o++) {
+                System.arraycopy(second[o], 0, weightsHiddenOutput, (c * outputSize + o) * hiddenSize, hiddenSize);
+            }
+            System.arraycopy(hiddenOutput[c].getScales(), 0, scalesHiddenOutput, c * outputSize, outputSize);
+            System.arraycopy(hiddenOutput[c].getBias(), 0, this.biasOutput, c * outputSize, outputSize);
+        }
+
+        this.threadWorkspace = ThreadLocal.withInitial(
+                () -> new Workspace(inputSize, categoryCount * hiddenSize, categoryCount * outputSize));
+    }
+
+    /**
+     * Loads the two quantized layers of one category written by {@link QuantizeMain}
+     * from {@code model/Data/<category>/}. Without usable quantized files the category
+     * is quantized in memory from its double model.
+     *
+     * @param category category name
+     * @param inputs   number of input nodes
+     * @param hidden   number of hidden nodes
+     * @param outputs  number of output nodes
+     * @return {inputHidden, hiddenOutput}
+     */
+    static QuantizedMatrix[] loadLayers(String category, int inputs, int hidden, int outputs) {
+        String directory = ModelFile.directory(category);
+        try {
+            QuantizedMatrix inputHidden = QuantizedMatrix.load(directory, INPUT_HIDDEN, hidden, inputs);
+            QuantizedMatrix hiddenOutput = QuantizedMatrix.load(directory, HIDDEN_OUTPUT, outputs, hidden);
+            if (inputHidden != null && hiddenOutput != null) {
+                return new QuantizedMatrix[] {
+                        requireShape(inputHidden, hidden, inputs), requireShape(hiddenOutput, outputs, hidden)
+                };
+            }
+            System.out.println("No quantized weights for " + category + ", quantizing in memory.");
+        } catch (RuntimeException e) {
+            System.out.println("Error reading the quantized weights of " + category + ": " + e.getMessage()
+                    + ", quantizing in memory.");
+        }
+        NeuralNetz model = new NeuralNetz(inputs, hidden, outputs, category);
+        return new QuantizedMatrix[] {
+                QuantizedMatrix.quantize(model.getWeightsInputHidden(), model.getBiasHidden()),
+                QuantizedMatrix.quantize(model.getWeightsHiddenOutput(), model.getBiasOutput())
+        };
+    }
+
+    /**
+     * Deletes the quantized layers in a model directory, because the double weights
+     * they were made from are about to be replaced. Run {@link QuantizeMain} again afterwards.
+     *
+     * @param directory model directory ending with a slash
+     */
+    static void invalidate(String directory) {
+        QuantizedMatrix.delete(directory, INPUT_HIDDEN);
+        QuantizedMatrix.delete(directory, HIDDEN_OUTPUT);
+    }
+
+    private static QuantizedMatrix requireShape(QuantizedMatrix matrix, int rows, int cols) {
+        if (matrix.getRows() != rows || matrix.getCols() != cols) {
+            throw new IllegalArgumentException("Quantized layer is " + matrix.getRows() + "x" + matrix.getCols()
+                    + " instead of " + rows + "x" + cols + ".");
+        }
+        return matrix;
+    }
+
+    @Override
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    @Override
+    public void score(double[] input, double[] probabilities) {
+        if (probabilities.length < categoryCount) {
+            throw new IllegalArgumentException("Probability array must have one slot per category.");
+        }
+        double[] logits = forward(input, threadWorkspace.get());
+        for (int c = 0; c < categoryCount; c++) {
+            // Index 0 is the "yes" probability
+            probabilities[c] = positiveProbability(logits, c * outputSize);
+        }
+    }
+
+    @Override
+    public void scoreAll(double[] input, double[] outputs) {
+        if (outputs.length < categoryCount * outputSize) {
+            throw new IllegalArgumentException("Output array must hold categoryCount * outputSize values.");
+        }
+        double[] logits = forward(input, threadWorkspace.get());
+        for (int c = 0; c < categoryCount; c++) {
+            int offset = c * outputSize;
+            double max = logits[offset];
+            for (int o = 1; o < outputSize; o++) {
+                max = Math.max(max, logits[offset + o]);
+            }
+            double sum = 0.0;
+            for (int o = 0; o < outputSize; o++) {
+                outputs[offset + o] = Math.exp(logits[offset + o] - max);
+                sum += outputs[offset + o];
+            }
+            for (int o = 0; o < outputSize; o++) {
+                outputs[offset + o] /= sum;
+            }
+        }
+    }
+
+    @Override
+    public void scoreBatch(double[][] inputs, double[][] probabilities) {
+        if (probabilities.length < inputs.length) {
+            throw new IllegalArgumentException("Probability arrays must be provided for every input.");
+        }
+        for (int s = 0; s < inputs.length; s++) {
+            score(inputs[s], probabilities[s]);
+        }
+    }
+
+    /**
+     * Quantizes the input and runs both layers.
+     *
+     * @return the raw outputs of every category, stored in the workspace
+     */
+    private double[] forward(double[] input, Workspace workspace) {
+        if (input.length != inputSize) {
+            throw new IllegalArgumentException("Matrix columns must match vector size.");
+        }
+        int[] quantizedInput = workspace.input;
+        for (int j = 0; j < inputSize; j++) {
+            double pixel = Math.max(0.0, Math.min(1.0, input[j]));
+            quantizedInput[j] = (int) Math.round(pixel * QuantizedMatrix.LEVELS);
+        }
+
+        double[] hidden = workspace.hidden;
+        int stackedRows = categoryCount * hiddenSize;
+        for (int i = 0; i < stackedRows; i++) {
+            int offset = i * inputSize;
+            int sum = 0;
+            for (int j = 0; j < inputSize; j++) {
+                sum += weightsInputHidden[offset + j] * quantizedInput[j];
+            }
+            double value = sum * scalesInputHidden[i] / QuantizedMatrix.LEVELS + biasHidden[i];
+            hidden[i] = Math.max(0, value);
+        }
+
+        double[] logits = workspace.logits;
+        for (int c = 0; c < categoryCount; c++) {
+            int hiddenOffset = c * hiddenSize;
+            for (int o = 0; o < outputSize; o++) {
+                int row = c * outputSize + o;
+                int offset = row * hiddenSize;
+                double sum = 0.0;
+                for (int h = 0; h < hiddenSize; h++) {
+                    sum += weightsHiddenOutput[offset + h] * hidden[hiddenOffset + h];
+                }
+                logits[row] = sum * scalesHiddenOutput[row] + biasOutput[row];
+            }
+        }
+        return logits;
+    }
+
+    /**
+     * Returns the softmax probability of the first output of one category block.
+     */
+    private double positiveProbability(double[] logits, int offset) {
+        double max = logits[offset];
+        for (int o = 1; o < outputSize; o++) {
+            max = Math.max(max, logits[offset + o]);
+        }
+        double sum = 0.0;
+        for (int o = 0; o < outputSize; o++) {
+            sum += Math.exp(logits[offset + o] - max);
+        }
+        return Math.exp(logits[offset] - max) / sum;
+    }
+}
@@ -0,0 +1,151 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import model.Data.*;
+
+/**
+ * A weight matrix quantized to signed 8-bit integers with one scale per row
+ * (symmetric post-training quantization). Entry (i, j) approximates
+ * {@code values[i][j] * scales[i]}. The double bias of every row is kept with it,
+ * so a saved layer never mixes weights and biases of different trainings.
+ */
+public class QuantizedMatrix {
+
+    /** Largest magnitude an int8 weight is mapped to. */
+    public static final int LEVELS = 127;
+
+    private final byte[][] values;
+    private final double[] scales;
+    private final double[] bias;
+
+    /**
+     * Wraps already quantized values, their row scales and the row biases.
+     *
+     * @param values int8 values, one array per row
+     * @param scales one scale per row
+     * @param bias   one bias per row
+     */
+    public QuantizedMatrix(byte[][] values, double[] scales, double[] bias) {
+        if (values.length != scales.length || values.length != bias.length) {
+            throw new IllegalArgumentException("Every row needs exactly one scale and one bias.");
+        }
+        this.values = values;
+        this.scales = scales;
+        this.bias = bias;
+    }
+
+    /**
+     * Quantizes a matrix so that the largest absolute value of every row maps to 127.
+     *
+     * @param matrix the double weights
+     * @param bias   the bias of every row, kept in double precision
+     * @return the quantized matrix
+     */
+    public static QuantizedMatrix quantize(double[][] matrix, double[] bias) {
+        byte[][] values = new byte[matrix.length][matrix[0].length];
+        double[] scales = new double[matrix.length];
+
+        for (int i = 0; i < matrix.length; i++) {
+            double maxAbs = 0.0;
+            for (double value : matrix[i]) {
+                maxAbs = Math.max(maxAbs, Math.abs(value));
+            }
+            // An all-zero row keeps scale 1 so dequantizing stays well defined
+            double scale = maxAbs > 0 ? maxAbs / LEVELS : 1.0;
+            scales[i] = scale;
+            for (int j = 0; j < matrix[i].length; j++) {
+                long q = Math.round(matrix[i][j] / scale);
+                values[i][j] = (byte) Math.max(-LEVELS, Math.min(LEVELS, q));
+            }
+        }
+        return new QuantizedMatrix(values, scales, bias.clone());
+    }
+
+    /**
+     * Returns the int8 values, one array per row.
+     */
+    public byte[][] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the scale of every row.
+     */
+    public double[] getScales() {
+        return scales;
+    }
+
+    /**
+     * Returns the bias of every row.
+     */
+    public double[] getBias() {
+        return bias;
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    public int getRows() {
+        return values.length;
+    }
+
+    /**
+     * Returns the number of columns.
+     */
+    public int getCols() {
+        return values[0].length;
+    }
+
+    /**
+     * Writes the values to {@code <name>.int8.txt} in the given directory, and the row scales
+     * and row biases as two lines to {@code <name>.scales.txt}.
+     *
+     * @param directory model directory ending with a slash
+     * @param name      base name of the matrix, e.g. "weightsInputHidden"
+     */
+    public void save(String directory, String name) {
+        Data.saveToFile(values, directory + name + ".int8.txt");
+        Data.saveToFile(new double[][] {scales, bias}, directory + name + ".scales.txt");
+    }
+
+    /**
+     * Loads a matrix written by {@link #save(String, String)}.
+     *
+     * @param directory model directory ending with a slash
+     * @param name      base name of the matrix
+     * @param rows      number of rows
+     * @param cols      number of columns
+     * @return the matrix, or null if no quantized file exists
+     * @throws java.io.UncheckedIOException if a file cannot be read or does not have the given shape
+     */
+    public static QuantizedMatrix load(String directory, String name, int rows, int cols) {
+        String valuesPath = directory + name + ".int8.txt";
+        if (!new File(valuesPath).exists()) {
+            return null;
+        }
+        byte[][] values = Data.loadByteMatrixFromFile(valuesPath, rows, cols);
+        double[][] rowParameters = Data.loadMatrixFromFile(directory + name + ".scales.txt", 2, rows);
+        return new QuantizedMatrix(values, rowParameters[0], rowParameters[1]);
+    }
+
+    /**
+     * Deletes the files written by {@link #save(String, String)}, e.g. because the double
+     * weights they were quantized from are being replaced.
+     *
+     * @param directory model directory ending with a slash
+     * @param name      base name of the matrix
+     */
+    public static void delete(String directory, String name) {
+        for (String suffix : new String[] {".int8.txt", ".scales.txt"}) {
+            try {
+                Files.deleteIfExists(Paths.get(directory + name + suffix));
+            } catch (IOException e) {
+                System.out.println("Error deleting " + directory + name + suffix + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * Runtime switch for the vectorized kernels in {@link MathFunctions}.
+ * The SIMD path needs the incubating {@code jdk.incubator.vector} module,
+ * which is only present when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}. Without it, or when the
+ * system property {@code montagsmaler.simd} is set to {@code false},
+ * all kernels use their scalar loops.
+ */
+public final class SimdSupport {
+
+    private static final boolean AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private static volatile boolean enabled =
+            AVAILABLE && !"false".equalsIgnoreCase(System.getProperty("montagsmaler.simd"));
+
+    private SimdSupport() {
+    }
+
+    /**
+     * Returns true if the Vector API module was loaded by the JVM.
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Returns true if the kernels currently use the vectorized implementation.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches between the vectorized and the scalar kernels.
+     * Enabling has no effect if the Vector API is not available.
+     *
+     * @param enable true to use SIMD kernels, false to force the scalar loops
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable && AVAILABLE;
+    }
+}
@@ -8,6 +8,8 @@ import model.Data.*;
  */
 public class Trainer {
 
+    private static final String MODEL_DIRECTORY = "model/Data/M/star/";
+
     private NeuralNetz neuralNetz;
     private double learningRate;
     private int epochs;
@@ -17,6 +19,7 @@ public class Trainer {
     private int patience;
     private int shuffleSeed;
     private double bestError;
+    private final CheckpointWriter checkpointWriter = new CheckpointWriter(MODEL_DIRECTORY);
 
     /**
      * Constructor to initialize training parameters and dataset.
@@ -32,11 +35,12 @@ public class Trainer {
         this.patience = patience;
         this.shuffleSeed = shuffleSeed;
 
-        this.bestError = Data.loadBestError("model\\Data\\M\\star\\BestError.txt");
+        this.bestError = Data.loadBestError(MODEL_DIRECTORY + "BestError.txt");
     }
 
     /**
      * Trains the neural network using mini-batch gradient descent and early stopping.
+     * Returns once the best model is saved.
      */
     public void train() {
         int epochsWithoutImprovement = 0;
@@ -83,44 +87,27 @@ public class Trainer {
                     }
 
                     for (int i = 0; i < weightsInputHidden.length; i++) {
-                        for (int j = 0; j < weightsInputHidden[i].length; j++) {
-                            gradWeightsIH[i][j] += deltaHidden[i] * inputs[j];
-                        }
+                        MathFunctions.axpy(deltaHidden[i], inputs, gradWeightsIH[i]);
                     }
 
                     for (int i = 0; i < weightsHiddenOutput.length; i++) {
-                        for (int j = 0; j < weightsHiddenOutput[i].length; j++) {
-                            gradWeightsHO[i][j] += deltaOutputs[i] * hiddenOutput[j];
-                        }
-                    }
-
-                    for (int i = 0; i < biasOutput.length; i++) {
-                        gradBiasO[i] += deltaOutputs[i];
+                        MathFunctions.axpy(deltaOutputs[i], hiddenOutput, gradWeightsHO[i]);
                     }
 
-                    for (int i = 0; i < biasHidden.length; i++) {
-                        gradBiasH[i] += deltaHidden[i];
-                    }
+                    MathFunctions.axpy(1.0, deltaOutputs, gradBiasO);
+                    MathFunctions.axpy(1.0, deltaHidden, gradBiasH);
                 }
 
                 double batchFactor = learningRate / batch.size();
 
                 for (int i = 0; i < weightsInputHidden.length; i++) {
-                    for (int j = 0; j < weightsInputHidden[i].length; j++) {
-                        weightsInputHidden[i][j] -= batchFactor * gradWeightsIH[i][j];
-                    }
+                    MathFunctions.axpy(-batchFactor, gradWeightsIH[i], weightsInputHidden[i]);
                 }
                 for (int i = 0; i < weightsHiddenOutput.length; i++) {
-                    for (int j = 0; j < weightsHiddenOutput[i].length; j++) {
-                        weightsHiddenOutput[i][j] -= batchFactor * gradWeightsHO[i][j];
-                    }
-                }
-                for (int i = 0; i < biasOutput.length; i++) {
-                    biasOutput[i] -= batchFactor * gradBiasO[i];
-                }
-                for (int i = 0; i < biasHidden.length; i++) {
-                    biasHidden[i] -= batchFactor * gradBiasH[i];
+                    MathFunctions.axpy(-batchFactor, gradWeightsHO[i], weightsHiddenOutput[i]);
                 }
+                MathFunctions.axpy(-batchFactor, gradBiasO, biasOutput);
+                MathFunctions.axpy(-batchFactor, gradBiasH, biasHidden);
 
                 neuralNetz.setWeightsInputHidden(weightsInputHidden);
                 neuralNetz.setWeightsHiddenOutput(weightsHiddenOutput);
@@ -139,7 +126,7 @@ public class Trainer {
                 epochsWithoutImprovement = 0;
 
                 saveBestModel();
-                System.out.println("New best model saved at Epoch " + epoch + " with error: " + bestError);
+                System.out.println("New best model at Epoch " + epoch + " with error: " + bestError);
             } else {
                 epochsWithoutImprovement++;
                 if (epochsWithoutImprovement >= patience) {
@@ -148,6 +135,7 @@ public class Trainer {
                 }
             }
         }
+        checkpointWriter.flush();
     }
 
     /**
@@ -163,13 +151,10 @@ public class Trainer {
     }
 
     /**
-     * Saves the current best model to disk.
+     * Hands a copy of the current best model to the background writer.
+     * Training continues while it is written; a newer best model replaces one still waiting.
      */
     private void saveBestModel() {
-        Data.saveBestError(bestError, "model/Data/M/star/BestError.txt");
-        Data.saveToFile(neuralNetz.getWeightsInputHidden(), "model/Data/M/star/weightsInputHidden.txt");
-        Data.saveToFile(neuralNetz.getWeightsHiddenOutput(), "model/Data/M/star/weightsHiddenOutput.txt");
-        Data.saveToFile(neuralNetz.getBiasHidden(), "model/Data/M/star/biasHidden.txt");
-        Data.saveToFile(neuralNetz.getBiasOutput(), "model/Data/M/star/biasOutput.txt");
+        checkpointWriter.submit(neuralNetz, bestError);
     }
 }
@@ -0,0 +1,169 @@
+package model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementations of the kernels in {@link MathFunctions}, built on the
+ * JDK Vector API. Only referenced when {@link SimdSupport#isEnabled()} is true,
+ * so this class is never loaded on a JVM without the incubator module.
+ * Every kernel finishes the elements that do not fill a whole vector with a scalar loop.
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Dot product of {@code length} elements of a and b starting at the given offsets.
+     */
+    static double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int upper = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOffset + i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOffset + i);
+            acc = acc.add(va.mul(vb));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Element-wise sum of a and b written into result.
+     */
+    static void add(double[] a, double[] b, double[] result) {
+        int upper = SPECIES.loopBound(a.length);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i)
+                    .add(DoubleVector.fromArray(SPECIES, b, i))
+                    .intoArray(result, i);
+        }
+        for (; i < a.length; i++) {
+            result[i] = a[i] + b[i];
+        }
+    }
+
+    /**
+     * Element-wise ReLU of vector written into result.
+     */
+    static void applyReLU(double[] vector, double[] result) {
+        int upper = SPECIES.loopBound(vector.length);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, vector, i)
+                    .max(0.0)
+                    .intoArray(result, i);
+        }
+        for (; i < vector.length; i++) {
+            result[i] = Math.max(0, vector[i]);
+        }
+    }
+
+    /**
+     * Adds alpha * x to y in place.
+     */
+    static void axpy(double alpha, double[] x, double[] y) {
+        axpy(alpha, x, 0, y, x.length);
+    }
+
+    /**
+     * Adds alpha times {@code length} elements of x, starting at xOffset, to the first elements of y.
+     */
+    static void axpy(double alpha, double[] x, int xOffset, double[] y, int length) {
+        int upper = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, i);
+            vy.add(DoubleVector.fromArray(SPECIES, x, xOffset + i).mul(alpha)).intoArray(y, i);
+        }
+        for (; i < length; i++) {
+            y[i] += alpha * x[xOffset + i];
+        }
+    }
+
+    /**
+     * Softmax of outputs written into result.
+     */
+    static void softmax(double[] outputs, double[] result) {
+        int length = outputs.length;
+        int upper = SPECIES.loopBound(length);
+        int i = 0;
+
+        DoubleVector maxVector = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        for (; i < upper; i += SPECIES.length()) {
+            maxVector = maxVector.max(DoubleVector.fromArray(SPECIES, outputs, i));
+        }
+        double max = maxVector.reduceLanes(VectorOperators.MAX);
+        for (; i < length; i++) {
+            max = Math.max(max, outputs[i]);
+        }
+
+        DoubleVector sumVector = DoubleVector.zero(SPECIES);
+        for (i = 0; i < upper; i += SPECIES.length()) {
+            DoubleVector exp = DoubleVector.fromArray(SPECIES, outputs, i)
+                    .sub(max)
+                    .lanewise(VectorOperators.EXP);
+            exp.intoArray(result, i);
+            sumVector = sumVector.add(exp);
+        }
+        double sum = sumVector.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result[i] = Math.exp(outputs[i] - max);
+            sum += result[i];
+        }
+
+        double scale = 1.0 / sum;
+        for (i = 0; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, result, i).mul(scale).intoArray(result, i);
+        }
+        for (; i < length; i++) {
+            result[i] *= scale;
+        }
+    }
+
+    /**
+     * Float32 dot product of {@code length} elements of a and b starting at the given offsets.
+     */
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(FLOAT_SPECIES);
+        int upper = FLOAT_SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < upper; i += FLOAT_SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(FLOAT_SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(FLOAT_SPECIES, b, bOffset + i);
+            acc = acc.add(va.mul(vb));
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Float32 element-wise ReLU of vector written into result.
+     */
+    static void applyReLU(float[] vector, float[] result) {
+        int upper = FLOAT_SPECIES.loopBound(vector.length);
+        int i = 0;
+        for (; i < upper; i += FLOAT_SPECIES.length()) {
+            FloatVector.fromArray(FLOAT_SPECIES, vector, i)
+                    .max(0f)
+                    .intoArray(result, i);
+        }
+        for (; i < vector.length; i++) {
+            result[i] = Math.max(0f, vector[i]);
+        }
+    }
+}
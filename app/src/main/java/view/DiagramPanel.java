@@ -5,6 +5,10 @@ import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
@@ -13,12 +17,35 @@ import javax.swing.Timer;
 /**
  * A panel that displays animated bar graphs representing category probabilities.
  * Used in the GUI to visualize classification results.
+ * Grid, markers and category names are rendered once into a cached image;
+ * animation frames only repaint the area of the bars that moved.
+ * Any number of categories can be shown: only the most probable ones get a bar,
+ * so painting does not get slower as categories are added.
  */
 public class DiagramPanel extends JPanel {
 
+    private static final Font MARKER_FONT = new Font("SansSerif", Font.PLAIN, 9);
+    private static final Font VALUE_FONT = new Font("SansSerif", Font.BOLD, 12);
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.PLAIN, 10);
+    private static final Color GRID_COLOR = new Color(200, 200, 200);
+    private static final Color MARKER_COLOR = new Color(120, 120, 120);
+
+    /** Time in which a bar covers about 63% of the remaining distance to its target. */
+    private static final double ANIMATION_TIME_CONSTANT_NANOS = 100_000_000.0;
+
+    /** Space above a bar for its percentage value. */
+    private static final int VALUE_LABEL_HEIGHT = 22;
+
+    private String[] categories = {"Apple", "Candle", "Eyeglasses", "Fork", "Star"};
+    private int maxBars = 5;
+
+    // Per displayed bar: category index, target and animated value
+    private int[] shownCategories;
+    private int shownCount;
     private double[] targetValues;
     private double[] animatedValues;
-    private final String[] categories = {"Apple", "Candle", "Eyeglasses", "Fork", "Star"};
+    private int[] selection;
+    private double[] nextAnimatedValues;
     private final Color[] colors = {
             new Color(255, 99, 132),
             new Color(255, 159, 64),
@@ -27,101 +54,257 @@ public class DiagramPanel extends JPanel {
             new Color(255, 205, 86)
     };
 
-    private Timer timer;
+    private final Timer timer;
+    private long lastFrameNanos;
+    private BufferedImage background;
 
     public DiagramPanel() {
-        this.targetValues = new double[] {0, 0, 0, 0, 0};
-        this.animatedValues = new double[] {0, 0, 0, 0, 0};
+        allocateBars();
         setBackground(Color.WHITE);
         setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
+
+        timer = new Timer(16, e -> animateStep()); // ~60fps animation clock
+        addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                background = null;
+            }
+        });
+        setValues(new double[categories.length]);
+    }
+
+    /**
+     * Creates the per-bar arrays for the current maximum number of bars.
+     */
+    private void allocateBars() {
+        shownCategories = new int[maxBars];
+        targetValues = new double[maxBars];
+        animatedValues = new double[maxBars];
+        selection = new int[maxBars];
+        nextAnimatedValues = new double[maxBars];
+        shownCount = 0;
+    }
+
+    /**
+     * Sets the category names shown below the bars.
+     * @param names one name per entry of the value arrays passed to {@link #setValues}
+     */
+    public void setCategories(String[] names) {
+        categories = names.clone();
+        background = null;
+        repaint();
+    }
+
+    /**
+     * Sets how many of the most probable categories get a bar, and resets the chart.
+     * @param maxBars maximum number of bars (at least 1)
+     */
+    public void setMaxBars(int maxBars) {
+        if (maxBars < 1) throw new IllegalArgumentException("At least one bar expected!");
+        this.maxBars = maxBars;
+        allocateBars();
+        setValues(new double[categories.length]);
     }
 
     /**
      * Sets new values to be displayed and starts animation.
-     * @param newValues array of five probability values (0.0 - 1.0)
+     * Only the most probable categories are shown, in category order. Bars that stay
+     * visible continue from their current height; new ones grow from zero.
+     * @param newValues one probability value (0.0 - 1.0) per category
      */
     public void setValues(double[] newValues) {
-        if (newValues.length != 5) throw new IllegalArgumentException("Exactly 5 values expected!");
-        System.arraycopy(newValues, 0, targetValues, 0, 5);
+        if (newValues.length == 0) throw new IllegalArgumentException("At least one value expected!");
+        int count = selectTop(newValues, Math.min(maxBars, newValues.length), selection);
+        Arrays.sort(selection, 0, count);
 
-        if (timer != null && timer.isRunning()) {
-            timer.stop();
+        if (count != shownCount || !Arrays.equals(selection, 0, count, shownCategories, 0, count)) {
+            for (int i = 0; i < count; i++) {
+                nextAnimatedValues[i] = 0;
+                for (int j = 0; j < shownCount; j++) {
+                    if (shownCategories[j] == selection[i]) {
+                        nextAnimatedValues[i] = animatedValues[j];
+                        break;
+                    }
+                }
+            }
+            double[] swap = animatedValues;
+            animatedValues = nextAnimatedValues;
+            nextAnimatedValues = swap;
+            System.arraycopy(selection, 0, shownCategories, 0, count);
+            shownCount = count;
+            background = null;
+            repaint();
+        }
+        boolean moving = false;
+        for (int i = 0; i < count; i++) {
+            targetValues[i] = newValues[shownCategories[i]];
+            moving |= targetValues[i] != animatedValues[i];
         }
 
-        timer = new Timer(16, e -> animateStep()); // ~60fps animation
-        timer.start();
+        if (moving && !timer.isRunning()) {
+            lastFrameNanos = System.nanoTime();
+            timer.start();
+        }
     }
 
     /**
-     * Animates the transition between old and new bar heights.
+     * Writes the indices of the {@code k} largest values into {@code result}, largest first,
+     * using a bounded insertion instead of sorting all values. Ties keep the lower index.
+     * @return number of indices written
+     */
+    static int selectTop(double[] values, int k, int[] result) {
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            if (count == k && value <= values[result[k - 1]]) continue;
+            int position = count < k ? count++ : k - 1;
+            while (position > 0 && values[result[position - 1]] < value) {
+                result[position] = result[position - 1];
+                position--;
+            }
+            result[position] = i;
+        }
+        return count;
+    }
+
+    /**
+     * Moves the bars towards their targets by an amount that depends on the time since
+     * the last frame, so the animation speed does not depend on the timer rate.
      */
     private void animateStep() {
+        long now = System.nanoTime();
+        double step = 1.0 - Math.exp(-(now - lastFrameNanos) / ANIMATION_TIME_CONSTANT_NANOS);
+        lastFrameNanos = now;
         boolean done = true;
 
-        for (int i = 0; i < targetValues.length; i++) {
-            double diff = targetValues[i] - animatedValues[i];
+        for (int i = 0; i < shownCount; i++) {
+            double previous = animatedValues[i];
+            double diff = targetValues[i] - previous;
             if (Math.abs(diff) > 0.005) {
-                animatedValues[i] += diff * 0.15;
+                animatedValues[i] += diff * step;
                 done = false;
             } else {
                 animatedValues[i] = targetValues[i];
             }
+            if (animatedValues[i] != previous) {
+                repaintBar(i, previous, animatedValues[i]);
+            }
         }
 
-        repaint();
-
         if (done) {
             timer.stop();
         }
     }
 
+    /**
+     * Repaints the area a bar and its value label cover at either of two heights.
+     */
+    private void repaintBar(int index, double oldValue, double newValue) {
+        int maxBarHeight = getHeight() - 100;
+        int barWidth = barWidth();
+        int top = getHeight() - 50 - (int) (clamp(Math.max(oldValue, newValue)) * maxBarHeight);
+        int x = barX(index);
+        repaint(x - barWidth / 2, top - VALUE_LABEL_HEIGHT, barWidth * 2, getHeight() - 48 - top + VALUE_LABEL_HEIGHT);
+    }
+
+    private int barWidth() {
+        return Math.min(getWidth() / (maxBars + 3), 60);
+    }
+
+    private int barX(int slot) {
+        int barWidth = barWidth();
+        int startX = (getWidth() - (barWidth * shownCount + 10 * (shownCount - 1))) / 2;
+        return startX + slot * (barWidth + 10);
+    }
+
+    private String categoryName(int index) {
+        return index < categories.length ? categories[index] : "#" + index;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0.0, Math.min(value, 1.0));
+    }
+
     /**
      * Returns the display color for a given category index.
      * @param index category index
      * @return corresponding Color
      */
     public Color getCategoryColor(int index) {
-        if (index >= 0 && index < colors.length) {
-            return colors[index];
+        if (index >= 0) {
+            return colors[index % colors.length];
         }
         return Color.GRAY;
     }
 
     /**
-     * Draws the bar graph and all category labels.
+     * Renders the parts of the chart that do not change with the values:
+     * background, guide lines, percentage markers and the labels of the shown categories.
      */
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
+    private BufferedImage renderBackground(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(getBackground());
+        g2d.fillRect(0, 0, width, height);
 
-        int width = getWidth();
-        int height = getHeight();
-        int barWidth = Math.min(width / 8, 60);
+        int barWidth = barWidth();
         int maxBarHeight = height - 100;
-        int startX = (width - (barWidth * 5 + 40)) / 2;
+        int startX = barX(0);
 
         // Draw horizontal guide lines and percentage markers
-        g2d.setFont(new Font("SansSerif", Font.PLAIN, 9));
-        g2d.setColor(new Color(200, 200, 200));
+        g2d.setFont(MARKER_FONT);
         for (int i = 0; i <= 10; i++) {
             int y = height - 50 - i * maxBarHeight / 10;
+            g2d.setColor(GRID_COLOR);
             g2d.drawLine(startX - 10, y, width - 30, y);
-            g2d.setColor(new Color(120, 120, 120));
+            g2d.setColor(MARKER_COLOR);
             g2d.drawString(i * 10 + "%", 5, y + 3);
-            g2d.setColor(new Color(200, 200, 200));
         }
 
-        // Draw animated bars and category labels
-        for (int i = 0; i < animatedValues.length; i++) {
-            double value = Math.max(0.0, Math.min(animatedValues[i], 1.0));
+        // Draw category labels below the bars
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(LABEL_FONT);
+        FontMetrics fm = g2d.getFontMetrics();
+        for (int i = 0; i < shownCount; i++) {
+            String name = categoryName(shownCategories[i]);
+            int textWidth = fm.stringWidth(name);
+            g2d.drawString(name, barX(i) + (barWidth - textWidth) / 2, height - 30);
+        }
+
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * Draws the cached background and the animated bars on top of it.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) return;
+        if (background == null || background.getWidth() != width || background.getHeight() != height) {
+            background = renderBackground(width, height);
+        }
+        g.drawImage(background, 0, 0, null);
+
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int barWidth = barWidth();
+        int maxBarHeight = height - 100;
+
+        // Draw animated bars with their values
+        g2d.setFont(VALUE_FONT);
+        FontMetrics fm = g2d.getFontMetrics();
+        for (int i = 0; i < shownCount; i++) {
+            double value = clamp(animatedValues[i]);
             int barHeight = (int) (value * maxBarHeight);
 
-            int x = startX + i * (barWidth + 10);
+            int x = barX(i);
             int y = height - 50 - barHeight;
 
-            g2d.setColor(colors[i]);
+            g2d.setColor(getCategoryColor(shownCategories[i]));
             g2d.fillRoundRect(x, y, barWidth, barHeight, 10, 10);
 
             // Draw outline for visual clarity
@@ -130,17 +313,9 @@ public class DiagramPanel extends JPanel {
 
             // Draw percentage value above the bar
             g2d.setColor(Color.BLACK);
-            g2d.setFont(new Font("SansSerif", Font.BOLD, 12));
-            String percent = (int)(value * 100) + "%";
-            FontMetrics fm = g2d.getFontMetrics();
+            String percent = (int) (value * 100) + "%";
             int textWidth = fm.stringWidth(percent);
             g2d.drawString(percent, x + (barWidth - textWidth) / 2, y - 6);
-
-            // Draw category label below the bar
-            g2d.setFont(new Font("SansSerif", Font.PLAIN, 10));
-            fm = g2d.getFontMetrics();
-            textWidth = fm.stringWidth(categories[i]);
-            g2d.drawString(categories[i], x + (barWidth - textWidth) / 2, height - 30);
         }
     }
 }
@@ -3,108 +3,327 @@ package view;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import javax.swing.JPanel;
 
+import controller.ClassificationResult;
+import controller.ClassificationService;
 import controller.GameController;
+import controller.IntegralImageSampler;
+import controller.LiveRecognitionScheduler;
 
 /**
  * A custom drawing panel where the user can draw with the mouse.
- * The panel supports resizing, clearing, and converts drawings into 28x28 grayscale matrix input.
+ * Strokes are kept as point lists in units of the smaller panel side, so resizing keeps
+ * the shape of the drawing. They are drawn at the panel size
+ * for display and into a small raster at model resolution for classification,
+ * so resizing the window neither copies pixels nor changes what the classifier sees.
+ * Like the QuickDraw training data, the model raster shows the ink centered and scaled
+ * to its bounding box, which is tracked point by point while drawing.
+ * New segments are drawn into an accelerated back buffer and only the area around
+ * them is repainted, so fast strokes stay smooth on slow machines.
  */
 public class DrawingPanel extends JPanel {
 
-    private BufferedImage canvasImage;
+    /** Pixels of the model raster per 28x28 cell, so the cells average real coverage. */
+    private static final int SUPERSAMPLING = 8;
+
+    /** Free border around centered ink, as a fraction of the raster side. */
+    private static final float INK_MARGIN = 0.1f;
+
+    /** Largest magnification of small drawings when centering. */
+    private static final float MAX_ZOOM = 4f;
+
     private final int outputSize = 28;
-    private int lastX, lastY;
-    private boolean isDrawing = false;
     private final float strokeWidth = 16.0f;
+    private final int modelSize = 14;
+    private final int rasterSize = outputSize * SUPERSAMPLING;
+    private final List<InkStroke> strokes = new ArrayList<>();
+    private final BufferedImage modelRaster;
+    private final Graphics2D rasterGraphics;
+    private BasicStroke rasterStroke;
+    private final InkBounds inkBounds = new InkBounds();
+    private final float[] rasterTransform = new float[4];
+    private boolean centering = true;
+    private VolatileImage backBuffer;
+    private Graphics2D backGraphics;
+    private BasicStroke displayStroke;
+    private boolean backBufferStale = true;
+    private int lastX, lastY;
+    private InkStroke currentStroke;
+    private LiveRecognitionScheduler liveRecognition;
+    private final IntegralImageSampler sampler = new IntegralImageSampler();
+    private boolean samplerStale = true;
+    private final double[] modelInput = new double[modelSize * modelSize];
 
     /**
-     * Constructor sets up mouse listeners and initializes canvas.
+     * Constructor sets up mouse listeners and initializes the model raster.
      */
     public DrawingPanel() {
         setBackground(Color.WHITE);
+        modelRaster = new BufferedImage(rasterSize, rasterSize, BufferedImage.TYPE_INT_RGB);
+        rasterGraphics = modelRaster.createGraphics();
+        rasterGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        clearRaster();
+        resetRasterTransform();
 
-        addComponentListener(new ComponentAdapter() {
-            public void componentResized(ComponentEvent e) {
-                initCanvas();
-                repaint();
-            }
-        });
-
-        // Handle mouse press to begin drawing
+        // Handle mouse press to begin a new stroke
         addMouseListener(new MouseAdapter() {
             public void mousePressed(MouseEvent e) {
-                isDrawing = true;
+                int w = Math.max(getWidth(), 1);
+                int h = Math.max(getHeight(), 1);
+                currentStroke = new InkStroke(strokeWidth / Math.min(w, h));
+                strokes.add(currentStroke);
+                rasterStroke = roundStroke(rasterStroke, currentStroke.getWidth() * rasterSize);
+                rasterGraphics.setStroke(rasterStroke);
                 lastX = e.getX();
                 lastY = e.getY();
-
-                Graphics2D g2 = canvasImage.createGraphics();
-                g2.setColor(Color.BLACK);
-                g2.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                g2.fillOval(lastX - (int)(strokeWidth / 2), lastY - (int)(strokeWidth / 2),
-                            (int) strokeWidth, (int) strokeWidth);
-                g2.dispose();
-                repaint();
+                addPoint(lastX, lastY);
             }
 
             public void mouseReleased(MouseEvent e) {
-                isDrawing = false;
+                currentStroke = null;
+            }
+        });
+
+        // Without centering the model sees the whole panel, whose shape changes with the window
+        addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                if (centering) return;
+                renderRaster();
+                if (liveRecognition != null && !strokes.isEmpty()) {
+                    liveRecognition.requestUpdate();
+                }
             }
         });
 
-        // Handle mouse drag to draw lines
+        // Handle mouse drag to extend the stroke
         addMouseMotionListener(new MouseMotionAdapter() {
             public void mouseDragged(MouseEvent e) {
-                if (!isDrawing) return;
-
-                Graphics2D g2 = canvasImage.createGraphics();
-                g2.setColor(Color.BLACK);
-                g2.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2.drawLine(lastX, lastY, e.getX(), e.getY());
-                g2.dispose();
-
+                if (currentStroke == null) return;
+                addPoint(e.getX(), e.getY());
                 lastX = e.getX();
                 lastY = e.getY();
-                repaint();
             }
         });
-
-        initCanvas();
     }
 
     /**
-     * Initializes or resizes the canvas image buffer.
+     * Appends a panel point to the current stroke, draws the new segment into the
+     * model raster and the back buffer and repaints only the area around the segment.
      */
-    private void initCanvas() {
+    private void addPoint(int x, int y) {
         int w = Math.max(getWidth(), 1);
         int h = Math.max(getHeight(), 1);
+        float side = Math.min(w, h);
+        float nx = x / side;
+        float ny = y / side;
+        currentStroke.add(nx, ny);
+        int index = currentStroke.getPointCount() - 1;
+
+        float[] t = rasterTransform;
+        if (inkBounds.add(nx, ny, currentStroke.getWidth()) && centering) {
+            // The ink outgrew its box, so the whole drawing moves in the model raster
+            renderRaster();
+        } else {
+            currentStroke.drawSegment(rasterGraphics, index, t[0], t[1], t[2], t[3]);
+        }
+
+        float displayWidth = currentStroke.getWidth() * side;
+        if (backGraphics != null && !backBufferStale && backBuffer.getWidth() == w && backBuffer.getHeight() == h) {
+            displayStroke = roundStroke(displayStroke, displayWidth);
+            backGraphics.setStroke(displayStroke);
+            currentStroke.drawSegment(backGraphics, index, side);
+        } else {
+            backBufferStale = true;
+        }
+
+        samplerStale = true;
+        if (liveRecognition != null) {
+            liveRecognition.requestUpdate();
+        }
+
+        int pad = (int) Math.ceil(displayWidth / 2) + 2;
+        repaint(Math.min(lastX, x) - pad, Math.min(lastY, y) - pad,
+                Math.abs(x - lastX) + 2 * pad, Math.abs(y - lastY) + 2 * pad);
+    }
+
+    /**
+     * Returns the cached stroke if it already has the given width, otherwise a new round stroke.
+     */
+    private static BasicStroke roundStroke(BasicStroke cached, float width) {
+        if (cached != null && cached.getLineWidth() == width) return cached;
+        return new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    }
+
+    /**
+     * Redraws all strokes into the model raster with a fresh centering transform.
+     */
+    private void renderRaster() {
+        clearRaster();
+        if (centering) {
+            inkBounds.fit(rasterSize, INK_MARGIN, MAX_ZOOM, rasterTransform);
+        } else {
+            resetRasterTransform();
+        }
+        float[] t = rasterTransform;
+        for (InkStroke stroke : strokes) {
+            rasterGraphics.setStroke(roundStroke(null, stroke.getWidth() * rasterSize));
+            stroke.draw(rasterGraphics, t[0], t[1], t[2], t[3]);
+        }
+        if (rasterStroke != null) {
+            rasterGraphics.setStroke(rasterStroke);
+        }
+    }
 
-        if (canvasImage == null || canvasImage.getWidth() != w || canvasImage.getHeight() != h) {
-            BufferedImage newImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g = newImage.createGraphics();
-            g.setColor(Color.WHITE);
-            g.fillRect(0, 0, w, h);
+    /**
+     * Maps the whole panel onto the model raster.
+     */
+    private void resetRasterTransform() {
+        panelTransform(rasterSize, rasterSize, rasterTransform);
+    }
+
+    /**
+     * Computes the mapping that fits the whole panel into an area with one scale for both axes,
+     * centered along the longer side, so the drawing keeps its aspect ratio.
+     * @param transform receives {scaleX, scaleY, offsetX, offsetY} for {@link InkStroke#draw}
+     */
+    private void panelTransform(int width, int height, float[] transform) {
+        float side = Math.min(Math.max(getWidth(), 1), Math.max(getHeight(), 1));
+        float panelWidth = Math.max(getWidth(), 1) / side;
+        float panelHeight = Math.max(getHeight(), 1) / side;
+        float scale = Math.min(width / panelWidth, height / panelHeight);
+        transform[0] = scale;
+        transform[1] = scale;
+        transform[2] = (width - panelWidth * scale) / 2;
+        transform[3] = (height - panelHeight * scale) / 2;
+    }
+
+    /**
+     * Chooses whether the model sees the ink centered and scaled to its bounding box
+     * (the default, matching the training data) or the whole panel.
+     * @param centering true to center and scale the ink
+     */
+    public void setCentering(boolean centering) {
+        if (this.centering == centering) return;
+        this.centering = centering;
+        renderRaster();
+        if (liveRecognition != null && !strokes.isEmpty()) {
+            liveRecognition.requestUpdate();
+        }
+    }
 
-            if (canvasImage != null) {
-                g.drawImage(canvasImage, 0, 0, null);
+    /**
+     * Paints the white model raster background.
+     */
+    private void clearRaster() {
+        samplerStale = true;
+        rasterGraphics.setColor(Color.WHITE);
+        rasterGraphics.fillRect(0, 0, rasterSize, rasterSize);
+        rasterGraphics.setColor(Color.BLACK);
+    }
+
+    /**
+     * Draws all strokes with black antialiased ink into a panel of the given size.
+     */
+    private static void drawStrokes(Graphics2D g2, List<InkStroke> strokes, int w, int h) {
+        g2.setColor(Color.BLACK);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        float side = Math.min(w, h);
+        BasicStroke stroke = null;
+        for (InkStroke inkStroke : strokes) {
+            stroke = roundStroke(stroke, inkStroke.getWidth() * side);
+            g2.setStroke(stroke);
+            inkStroke.draw(g2, side);
+        }
+    }
+
+    /**
+     * Makes sure the back buffer matches the panel and holds all strokes,
+     * redrawing them after a resize or when the graphics card lost its contents.
+     * @return false if no accelerated image is available, e.g. before the panel is shown
+     */
+    private boolean prepareBackBuffer() {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc == null) return false;
+        int w = Math.max(getWidth(), 1);
+        int h = Math.max(getHeight(), 1);
+
+        int status = VolatileImage.IMAGE_INCOMPATIBLE;
+        if (backBuffer != null && backBuffer.getWidth() == w && backBuffer.getHeight() == h) {
+            status = backBuffer.validate(gc);
+        }
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (backBuffer != null) {
+                backGraphics.dispose();
+                backBuffer.flush();
             }
+            backBuffer = gc.createCompatibleVolatileImage(w, h);
+            backGraphics = backBuffer.createGraphics();
+            backBufferStale = true;
+        } else if (status == VolatileImage.IMAGE_RESTORED) {
+            backBufferStale = true;
+        }
 
-            g.dispose();
-            canvasImage = newImage;
+        if (backBufferStale) {
+            backGraphics.setColor(getBackground());
+            backGraphics.fillRect(0, 0, w, h);
+            drawStrokes(backGraphics, strokes, w, h);
+            displayStroke = (BasicStroke) backGraphics.getStroke();
+            backBufferStale = false;
         }
+        return true;
     }
 
     /**
-     * Paints the canvas image onto the panel.
+     * Copies the back buffer onto the panel; Swing limits the copy to the repainted region.
      */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (canvasImage != null) {
-            g.drawImage(canvasImage, 0, 0, getWidth(), getHeight(), null);
+        do {
+            if (!prepareBackBuffer()) {
+                Graphics2D g2 = (Graphics2D) g.create();
+                drawStrokes(g2, strokes, Math.max(getWidth(), 1), Math.max(getHeight(), 1));
+                g2.dispose();
+                return;
+            }
+            g.drawImage(backBuffer, 0, 0, null);
+        } while (backBuffer.contentsLost());
+    }
+
+    /**
+     * Draws all strokes into a new white image of any size, e.g. for other model resolutions.
+     * With centering on, the ink is centered and scaled like in the model raster.
+     * @param width  image width in pixels
+     * @param height image height in pixels
+     * @return the rasterized drawing
+     */
+    public BufferedImage rasterize(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setColor(Color.WHITE);
+        g2.fillRect(0, 0, width, height);
+        int side = Math.min(width, height);
+        float[] t = new float[4];
+        if (centering) {
+            inkBounds.fit(side, INK_MARGIN, MAX_ZOOM, t);
+            t[2] += (width - side) / 2f;
+            t[3] += (height - side) / 2f;
+        } else {
+            panelTransform(width, height, t);
         }
+        g2.setColor(Color.BLACK);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (InkStroke stroke : strokes) {
+            g2.setStroke(roundStroke(null, stroke.getWidth() * side));
+            stroke.draw(g2, t[0], t[1], t[2], t[3]);
+        }
+        g2.dispose();
+        return image;
     }
 
     /**
@@ -112,20 +331,69 @@ public class DrawingPanel extends JPanel {
      * @return probabilities returned by the classifier
      */
     public double[] printArray() {
-        if (canvasImage == null) return new double[] {0, 0, 0, 0, 0};
+        return recognize().getAdjustedProbabilities();
+    }
 
-        double[][] pixelMatrix = getPixelMatrix();
-        return GameController.classifyFromPixelMatrix(pixelMatrix);
+    /**
+     * Classifies the current drawing in a single pass.
+     * @return probabilities, best category and timings for the current canvas
+     */
+    public ClassificationResult recognize() {
+        long start = System.nanoTime();
+        getModelInput(modelInput);
+        return GameController.classify(modelInput, System.nanoTime() - start);
     }
 
     /**
-     * Scales the canvas image to 28x28 and converts it into a grayscale pixel matrix.
+     * Classifies the current drawing in the background. Only the cheap preprocessing
+     * runs on the calling thread, so the event dispatch thread is not blocked by the models.
+     * @param service  service running the models
+     * @param onResult receives the result on the event dispatch thread
+     * @param onError  receives the error on the event dispatch thread if the classification failed
+     */
+    public void recognizeAsync(ClassificationService service, Consumer<ClassificationResult> onResult,
+                               Consumer<Exception> onError) {
+        long start = System.nanoTime();
+        getModelInput(modelInput);
+        service.classify(modelInput, System.nanoTime() - start, onResult, onError);
+    }
+
+    /**
+     * Writes the pooled 14x14 model input for the current drawing into {@code target},
+     * reading the model raster directly instead of going through {@link #getPixelMatrix()}.
+     * Same as {@code getModelInput(14, 2, target)}, so repeated calls without a drawing change
+     * only sample the cached summed-area table.
+     * @param target array of at least 196 elements
+     * @return the given array
+     */
+    public double[] getModelInput(double[] target) {
+        return getModelInput(modelSize, 2, target);
+    }
+
+    /**
+     * Writes the model input at any resolution into {@code target}, e.g. 28x28 or 64x64
+     * for models trained on larger images. The summed-area table of the model raster is
+     * built at most once per drawing change and shared by all resolutions.
+     * @param size   side length of the model input
+     * @param pool   max-pooling factor after area averaging; 2 matches the 14x14 pipeline, 1 disables pooling
+     * @param target array of at least {@code size * size} elements
+     * @return the given array
+     */
+    public double[] getModelInput(int size, int pool, double[] target) {
+        if (samplerStale) {
+            sampler.build(modelRaster);
+            samplerStale = false;
+        }
+        sampler.sampleMaxPooled(size, pool, target);
+        return target;
+    }
+
+    /**
+     * Scales the model raster to 28x28 and converts it into a grayscale pixel matrix.
      * @return a 28x28 matrix of normalized grayscale values
      */
     public double[][] getPixelMatrix() {
-        if (canvasImage == null) return new double[outputSize][outputSize];
-
-        Image scaledImage = canvasImage.getScaledInstance(outputSize, outputSize, Image.SCALE_AREA_AVERAGING);
+        Image scaledImage = modelRaster.getScaledInstance(outputSize, outputSize, Image.SCALE_AREA_AVERAGING);
         BufferedImage smallImage = new BufferedImage(outputSize, outputSize, BufferedImage.TYPE_INT_RGB);
 
         Graphics2D gSmall = smallImage.createGraphics();
@@ -150,14 +418,33 @@ public class DrawingPanel extends JPanel {
     }
 
     /**
-     * Clears the canvas by painting it white.
+     * Clears the drawing by removing all strokes.
      */
     public void clear() {
-        if (canvasImage == null) return;
-        Graphics2D g2 = canvasImage.createGraphics();
-        g2.setColor(Color.WHITE);
-        g2.fillRect(0, 0, canvasImage.getWidth(), canvasImage.getHeight());
-        g2.dispose();
+        strokes.clear();
+        currentStroke = null;
+        inkBounds.reset();
+        clearRaster();
+        resetRasterTransform();
+        backBufferStale = true;
+        if (liveRecognition != null) {
+            liveRecognition.cancel();
+        }
         repaint();
     }
+
+    /**
+     * Turns on live recognition: every change to the drawing is reported to the scheduler,
+     * which decides when to classify.
+     * @param scheduler scheduler reading its input from {@link #getModelInput(double[])}, or null to turn live recognition off
+     */
+    public void setLiveRecognition(LiveRecognitionScheduler scheduler) {
+        if (liveRecognition != null) {
+            liveRecognition.cancel();
+        }
+        liveRecognition = scheduler;
+        if (scheduler != null && !strokes.isEmpty()) {
+            scheduler.requestUpdate();
+        }
+    }
 }
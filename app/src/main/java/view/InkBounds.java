@@ -0,0 +1,67 @@
+package view;
+
+/**
+ * Bounding box of all stroke points of a drawing, grown point by point as strokes are added,
+ * so the extent of the ink is known without scanning any image.
+ * Coordinates are the panel coordinates of {@link InkStroke}, in units of the smaller panel side.
+ */
+class InkBounds {
+
+    private float minX, minY, maxX, maxY;
+    private float maxWidth;
+    private boolean empty = true;
+
+    /**
+     * Includes a point of a stroke with the given relative width.
+     * @return true if the box grew
+     */
+    boolean add(float x, float y, float width) {
+        if (empty) {
+            minX = maxX = x;
+            minY = maxY = y;
+            maxWidth = width;
+            empty = false;
+            return true;
+        }
+        boolean grew = false;
+        if (x < minX) { minX = x; grew = true; }
+        if (x > maxX) { maxX = x; grew = true; }
+        if (y < minY) { minY = y; grew = true; }
+        if (y > maxY) { maxY = y; grew = true; }
+        if (width > maxWidth) { maxWidth = width; grew = true; }
+        return grew;
+    }
+
+    void reset() {
+        empty = true;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Computes the mapping that centers the ink in a square area and scales it uniformly,
+     * so that the ink including its line width fills the area apart from a margin.
+     * Line widths stay as they are, like drawings rendered at a fixed pen size.
+     *
+     * @param size      side length of the target area in pixels
+     * @param margin    free border on each side as a fraction of the side length
+     * @param maxZoom   upper limit for the magnification of small drawings
+     * @param transform receives {scaleX, scaleY, offsetX, offsetY} for {@link InkStroke#draw}
+     */
+    void fit(int size, float margin, float maxZoom, float[] transform) {
+        float scale = size;
+        if (!empty) {
+            float extent = Math.max(maxX - minX, maxY - minY);
+            float available = Math.max(size * (1 - 2 * margin) - maxWidth * size, 1);
+            scale = extent > 0 ? Math.min(available / extent, maxZoom * size) : size;
+        }
+        float centerX = empty ? 0.5f : (minX + maxX) / 2;
+        float centerY = empty ? 0.5f : (minY + maxY) / 2;
+        transform[0] = scale;
+        transform[1] = scale;
+        transform[2] = size / 2f - centerX * scale;
+        transform[3] = size / 2f - centerY * scale;
+    }
+}
@@ -0,0 +1,113 @@
+package view;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * One continuous stroke of the drawing, stored as a compact list of points.
+ * Coordinates and width are relative to the smaller panel side, so both axes use the
+ * same unit: a stroke can be drawn at any size without distorting its shape.
+ */
+class InkStroke {
+
+    private float[] points = new float[32];
+    private int pointCount;
+    private final float width;
+
+    /**
+     * Creates an empty stroke.
+     *
+     * @param width stroke width relative to the smaller side of the drawing area
+     */
+    InkStroke(float width) {
+        this.width = width;
+    }
+
+    /**
+     * Appends a point in normalized coordinates.
+     */
+    void add(float x, float y) {
+        if (pointCount * 2 == points.length) {
+            points = Arrays.copyOf(points, points.length * 2);
+        }
+        points[pointCount * 2] = x;
+        points[pointCount * 2 + 1] = y;
+        pointCount++;
+    }
+
+    int getPointCount() {
+        return pointCount;
+    }
+
+    float getX(int index) {
+        return points[index * 2];
+    }
+
+    float getY(int index) {
+        return points[index * 2 + 1];
+    }
+
+    float getWidth() {
+        return width;
+    }
+
+    /**
+     * Draws the whole stroke with one unit mapped to {@code scale} pixels on both axes.
+     * The caller sets the color and a round {@link java.awt.BasicStroke} of width {@code getWidth() * scale}.
+     */
+    void draw(Graphics2D g, float scale) {
+        draw(g, scale, scale, 0, 0);
+    }
+
+    /**
+     * Draws the whole stroke with the point mapping {@code x * scaleX + offsetX},
+     * {@code y * scaleY + offsetY}. The caller sets the color and a round
+     * {@link java.awt.BasicStroke}; single points are drawn as dots of the stroke width.
+     */
+    void draw(Graphics2D g, float scaleX, float scaleY, float offsetX, float offsetY) {
+        if (pointCount == 0) return;
+        if (pointCount == 1) {
+            drawDot(g, 0, scaleX, scaleY, offsetX, offsetY);
+            return;
+        }
+        Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, pointCount);
+        path.moveTo(getX(0) * scaleX + offsetX, getY(0) * scaleY + offsetY);
+        for (int i = 1; i < pointCount; i++) {
+            path.lineTo(getX(i) * scaleX + offsetX, getY(i) * scaleY + offsetY);
+        }
+        g.draw(path);
+    }
+
+    /**
+     * Draws only the segment that ends at the given point, or a dot for the first point.
+     */
+    void drawSegment(Graphics2D g, int index, float scale) {
+        drawSegment(g, index, scale, scale, 0, 0);
+    }
+
+    /**
+     * Draws only the segment that ends at the given point with the same mapping as
+     * {@link #draw(Graphics2D, float, float, float, float)}.
+     */
+    void drawSegment(Graphics2D g, int index, float scaleX, float scaleY, float offsetX, float offsetY) {
+        if (index == 0) {
+            drawDot(g, 0, scaleX, scaleY, offsetX, offsetY);
+            return;
+        }
+        Path2D.Float segment = new Path2D.Float(Path2D.WIND_NON_ZERO, 2);
+        segment.moveTo(getX(index - 1) * scaleX + offsetX, getY(index - 1) * scaleY + offsetY);
+        segment.lineTo(getX(index) * scaleX + offsetX, getY(index) * scaleY + offsetY);
+        g.draw(segment);
+    }
+
+    private void drawDot(Graphics2D g, int index, float scaleX, float scaleY, float offsetX, float offsetY) {
+        float diameter = g.getStroke() instanceof BasicStroke
+                ? ((BasicStroke) g.getStroke()).getLineWidth()
+                : width * Math.min(scaleX, scaleY);
+        g.fill(new Ellipse2D.Float(getX(index) * scaleX + offsetX - diameter / 2,
+                getY(index) * scaleY + offsetY - diameter / 2, diameter, diameter));
+    }
+}
@@ -4,6 +4,9 @@ import java.awt.*;
 import javax.swing.*;
 import javax.swing.border.*;
 
+import controller.ClassificationService;
+import controller.LiveRecognitionScheduler;
+
 /**
  * Main class that sets up the GUI for the drawing recognition app.
  * Includes a drawing panel, result visualization, and control buttons.
@@ -104,16 +107,33 @@ public class Main {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 0));
         buttonPanel.setBackground(LIGHT_BG);
 
+        // Live guessing while drawing, on its own worker so the Recognize button cannot supersede it.
+        // The input buffer is reused on the event dispatch thread; the service classifies a copy.
+        double[] liveInput = new double[196];
+        LiveRecognitionScheduler liveRecognition = new LiveRecognitionScheduler(new ClassificationService(),
+                () -> drawingPanel.getModelInput(liveInput), result -> {
+                    diagramPanel.setValues(result.getAdjustedProbabilities());
+                    bestMatchLabel.setText("Guess: " + result.getBestCategory());
+                }, error -> bestMatchLabel.setText("Live guess failed"));
+        drawingPanel.setLiveRecognition(liveRecognition);
+
+        JCheckBox liveCheckBox = new JCheckBox("Live guess", true);
+        liveCheckBox.setBackground(LIGHT_BG);
+        liveCheckBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        liveCheckBox.addActionListener(e ->
+                drawingPanel.setLiveRecognition(liveCheckBox.isSelected() ? liveRecognition : null));
+
+        // The models run on a background thread; a newer click supersedes an older one
+        ClassificationService classificationService = new ClassificationService();
         JButton recognizeButton = createStyledButton("Recognize", HOVER_BLUE, Color.WHITE);
-        recognizeButton.addActionListener(e -> {
-            double[] values = drawingPanel.printArray();
-            diagramPanel.setValues(values);
-            String bestCategory = controller.GameController.getBestCategory(drawingPanel.getPixelMatrix());
-            bestMatchLabel.setText("Recognized: " + bestCategory);
-        });
+        recognizeButton.addActionListener(e -> drawingPanel.recognizeAsync(classificationService, result -> {
+            diagramPanel.setValues(result.getAdjustedProbabilities());
+            bestMatchLabel.setText("Recognized: " + result.getBestCategory());
+        }, error -> bestMatchLabel.setText("Recognition failed")));
 
         JButton clearButton = createStyledButton("Clear", HOVER_BLUE, Color.WHITE);
         clearButton.addActionListener(e -> {
+            classificationService.cancel();
             diagramPanel.setValues(new double[]{0, 0, 0, 0, 0});
             drawingPanel.clear();
             bestMatchLabel.setText("Please draw something...");
@@ -121,6 +141,25 @@ public class Main {
 
         buttonPanel.add(recognizeButton);
         buttonPanel.add(clearButton);
+        buttonPanel.add(liveCheckBox);
+
+        // The models load in the background; drawing works meanwhile and recognition starts once they are ready
+        recognizeButton.setEnabled(false);
+        bestMatchLabel.setText("Loading models...");
+        controller.GameController.whenReady().whenComplete((ready, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                // Every guess would fail, so live guessing is turned off
+                liveCheckBox.setSelected(false);
+                liveCheckBox.setEnabled(false);
+                drawingPanel.setLiveRecognition(null);
+                bestMatchLabel.setText("Models could not be loaded");
+                return;
+            }
+            recognizeButton.setEnabled(true);
+            if (bestMatchLabel.getText().equals("Loading models...")) {
+                bestMatchLabel.setText("Please draw something...");
+            }
+        }));
 
         // Final layout
         mainContainer.add(leftPanel, BorderLayout.WEST);